@@ -0,0 +1,71 @@
+package chess;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ChessGame#validMoves} and {@link ChessGame#makeMove} on the perft reference positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    @Param({"start", "kiwipete", "position4"})
+    public String position;
+
+    private ChessGame game;
+    private ChessPosition[] pieces;
+    private ChessMove move;
+
+    @Setup
+    public void setup() {
+        game = Positions.game(position);
+        List<ChessPosition> ownPieces = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = ChessPosition.getPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    ownPieces.add(square);
+                    if (move == null && !game.validMoves(square).isEmpty()) {
+                        move = game.validMoves(square).iterator().next();
+                    }
+                }
+            }
+        }
+        pieces = ownPieces.toArray(new ChessPosition[0]);
+    }
+
+    /**
+     * Every legal move for the side to move, asked for one piece at a time the way the client and server do.
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : pieces) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    /**
+     * Copies the game so every call plays the same move; compare against {@link #copyGame()}.
+     */
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        ChessGame copy = new ChessGame(game.getTeamTurn(), game.getBoard().copyOf());
+        copy.makeMove(move);
+        return copy;
+    }
+
+    @Benchmark
+    public ChessGame copyGame() {
+        return new ChessGame(game.getTeamTurn(), game.getBoard().copyOf());
+    }
+}
@@ -0,0 +1,35 @@
+package chess;
+
+import java.util.Map;
+
+/**
+ * Named positions shared by the benchmarks: the perft reference positions plus a checkmate and a stalemate.
+ */
+public final class Positions {
+
+    private static final Map<String, String> TERMINAL = Map.of(
+            "checkmate", "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3",
+            "stalemate", "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+
+    private Positions() {
+    }
+
+    public static String fen(String name) {
+        if (TERMINAL.containsKey(name)) {
+            return TERMINAL.get(name);
+        }
+        return Perft.STANDARD_POSITIONS.stream()
+                .filter(position -> position.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown position " + name))
+                .fen();
+    }
+
+    /**
+     * @return A new game set up at the named position, with the side to move taken from the FEN.
+     */
+    public static ChessGame game(String name) {
+        ChessBoard board = Fen.parseBoard(fen(name));
+        return new ChessGame(board.getTeamTurn(), board);
+    }
+}
@@ -0,0 +1,143 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link GameDAO} calls made while a game is played, for the memory DAO and for the database DAO.
+ * <p>
+ * The database DAO runs against the embedded in-memory database named in this module's db.properties instead of
+ * MySQL, so the numbers show the cost of the DAO itself (statements, serialization, round-trips to the driver)
+ * rather than of a particular server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameDAOBenchmark {
+
+    private static final int GAMES = 50;
+
+    /**
+     * Knights out and back again, which can be repeated from the starting position.
+     */
+    private static final ChessMove[] MOVES = {
+            move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7), move(6, 6, 8, 7)};
+
+    /**
+     * Knight plies played between the a-pawn pushes that reset the halfmove clock.
+     */
+    private static final int KNIGHT_PLIES = 96;
+
+    /**
+     * Plies in a game played by {@link #move(int)}, after which the a-pawns are blocked and the seventy-five-move
+     * rule would eventually end it.
+     */
+    private static final int GAME_PLIES = 2 * (KNIGHT_PLIES + 2);
+
+    /**
+     * Plies played in the first game before measuring, so event-sourced loads have a long log behind them.
+     */
+    private static final int LONG_GAME_PLIES = GAME_PLIES;
+
+    private static final int SNAPSHOT_INTERVAL = 32;
+
+    /**
+     * The memory DAO, or the database DAO storing games in the named {@link DatabaseGameDAO.StorageFormat}. A
+     * "-log" suffix makes the database DAO event sourced, and "-cached" puts a {@link CachingGameDAO} with timed
+     * flushes in front of it.
+     */
+    @Param({"memory", "json", "fen", "binary", "binary-log", "binary-cached"})
+    public String dao;
+
+    private GameDAO gameDAO;
+    private int gameID;
+    private int nextGameID;
+    private int moveNumber;
+
+    @Setup
+    public void setup() throws Exception {
+        if (!dao.equals("memory")) {
+            // The assembled jar keeps only one java.sql.Driver service file, so register the embedded driver here.
+            Class.forName("org.h2.Driver");
+            DatabaseManager.createTables();
+            String[] parts = dao.split("-");
+            boolean eventSourced = parts.length > 1 && parts[1].equals("log");
+            gameDAO = new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.valueOf(parts[0].toUpperCase()), eventSourced,
+                    SNAPSHOT_INTERVAL);
+            if (parts.length > 1 && parts[1].equals("cached")) {
+                gameDAO = new CachingGameDAO(gameDAO, CachingGameDAO.Durability.TIMED, 1000);
+            }
+        }
+        else {
+            gameDAO = new MemoryGameDAO();
+        }
+        gameDAO.clear();
+        for (int i = 1; i <= GAMES; i++) {
+            gameDAO.createGame(new GameData(i, "white", "black", "game " + i, new ChessGame()));
+        }
+        for (int ply = 0; ply < LONG_GAME_PLIES; ply++) {
+            gameDAO.makeMove(1, ply % 2 == 0 ? "white" : "black", move(ply));
+        }
+        gameID = GAMES / 2;
+        nextGameID = GAMES + 1;
+        moveNumber = 0;
+    }
+
+    @TearDown
+    public void tearDown() throws DataAccessException {
+        gameDAO.clear();
+    }
+
+    @Benchmark
+    public GameData getGame() throws Exception {
+        return gameDAO.getGame(gameID);
+    }
+
+    @Benchmark
+    public GameData getLongGame() throws Exception {
+        return gameDAO.getGame(1);
+    }
+
+    @Benchmark
+    public GameData[] listGames() throws DataAccessException {
+        return gameDAO.listGames();
+    }
+
+    @Benchmark
+    public void makeMove() throws Exception {
+        if (moveNumber == GAME_PLIES) {
+            gameID = gameDAO.createGame(new GameData(nextGameID, "white", "black", "game " + nextGameID,
+                    new ChessGame()));
+            nextGameID++;
+            moveNumber = 0;
+        }
+        ChessMove move = move(moveNumber++);
+        gameDAO.makeMove(gameID, moveNumber % 2 == 1 ? "white" : "black", move);
+    }
+
+    /**
+     * @return The move at a ply of a game that shuffles knights and pushes each a-pawn once every
+     * {@link #KNIGHT_PLIES} plies, so it runs {@link #GAME_PLIES} plies without a draw by the seventy-five-move rule.
+     */
+    private static ChessMove move(int ply) {
+        int pushes = ply / (KNIGHT_PLIES + 2);
+        int knightPly = ply % (KNIGHT_PLIES + 2);
+        return switch (knightPly - KNIGHT_PLIES) {
+            case 0 -> move(2 + pushes, 1, 3 + pushes, 1);
+            case 1 -> move(7 - pushes, 1, 6 - pushes, 1);
+            default -> MOVES[knightPly & 3];
+        };
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
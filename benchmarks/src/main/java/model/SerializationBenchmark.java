@@ -0,0 +1,99 @@
+package model;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.PackedGame;
+import chess.Positions;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Gson, FEN and packed round-trips done on every game load, save and broadcast.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"start", "kiwipete"})
+    public String position;
+
+    private final Gson gson = new Gson();
+    private ChessGame game;
+    private GameData gameData;
+    private String gameJson;
+    private String gameDataJson;
+    private String gameFen;
+    private byte[] packedGame;
+
+    @Setup
+    public void setup() {
+        game = Positions.game(position);
+        gameData = new GameData(1, "white", "black", "benchmark", game);
+        gameJson = gson.toJson(game);
+        gameDataJson = gson.toJson(gameData);
+        gameFen = Fen.toFen(game);
+        packedGame = PackedGame.pack(game);
+    }
+
+    @Benchmark
+    public String gameToJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromJson() {
+        return gson.fromJson(gameJson, ChessGame.class);
+    }
+
+    /**
+     * The way the server and DAOs serialize today, with a new Gson per call.
+     */
+    @Benchmark
+    public String gameToJsonNewGson() {
+        return new Gson().toJson(game);
+    }
+
+    @Benchmark
+    public String gameDataToJson() {
+        return gson.toJson(gameData);
+    }
+
+    @Benchmark
+    public GameData gameDataFromJson() {
+        return gson.fromJson(gameDataJson, GameData.class);
+    }
+
+    @Benchmark
+    public String gameToFen() {
+        return Fen.toFen(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromFen() {
+        return Fen.parseGame(gameFen);
+    }
+
+    @Benchmark
+    public byte[] packGame() {
+        return PackedGame.pack(game);
+    }
+
+    @Benchmark
+    public ChessGame unpackGame() {
+        return PackedGame.unpackGame(packedGame);
+    }
+
+    /**
+     * What {@code DatabaseGameDAO} does for each row it reads.
+     */
+    @Benchmark
+    public GameData gameDataFromColumn() {
+        return new GameData(1, "white", "black", "benchmark", gameJson);
+    }
+}
@@ -0,0 +1,80 @@
+package server;
+
+import chess.Positions;
+import com.google.gson.Gson;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.openjdk.jmh.annotations.*;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.ServerMessage;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ConnectionManager#broadcast} fanning a board update out to every connection in a game.
+ * <p>
+ * Sessions are stand-ins that are always open and complete every write at once, discarding what is sent, so only the
+ * server's own cost is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionManagerBenchmark {
+
+    private static final int GAME_ID = 1;
+
+    @Param({"2", "10", "100"})
+    public int connections;
+
+    private ConnectionManager manager;
+    private ServerMessage message;
+    private long charsSent;
+
+    @Setup
+    public void setup() {
+        manager = new ConnectionManager();
+        for (int i = 0; i < connections; i++) {
+            manager.add(GAME_ID, "user" + i, openSession());
+        }
+        GameData game = new GameData(GAME_ID, "user0", "user1", "benchmark", Positions.game("kiwipete"));
+        message = new LoadGameMessage(new Gson().toJson(game));
+    }
+
+    @Benchmark
+    public long broadcast() {
+        manager.broadcast(GAME_ID, message);
+        return charsSent;
+    }
+
+    private Session openSession() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        charsSent += ((String) args[0]).length();
+                        ((WriteCallback) args[1]).writeSuccess();
+                    }
+                    return stubResult(proxy, method.getName(), args);
+                });
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    default -> stubResult(proxy, method.getName(), args);
+                });
+    }
+
+    private static Object stubResult(Object proxy, String method, Object[] args) {
+        return switch (method) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "StubSession@" + Integer.toHexString(System.identityHashCode(proxy));
+            default -> null;
+        };
+    }
+}
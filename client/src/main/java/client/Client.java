@@ -7,6 +7,7 @@ import serverfacade.ServerFacade;
 import ui.EscapeSequences;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
 import websocket.messages.NotificationMessage;
 import websocket.messages.ServerMessage;
 
@@ -21,6 +22,11 @@ public class Client {
     private GameData[] games = null;
     private ChessGame.TeamColor color = null;
     private GameData curGame = null;
+    /**
+     * Whether the whole game has been asked for again and has not arrived yet. Moves arriving in the meantime are
+     * already in the game on its way, so they are ignored rather than each asking for another copy.
+     */
+    private boolean reloadPending = false;
 
     public void setServer(ServerFacade server) {
         this.server = server;
@@ -479,10 +485,27 @@ public class Client {
             }
             case LOAD_GAME -> {
                 curGame = ((LoadGameMessage) msg).getGame();
+                reloadPending = false;
                 System.out.println();
                 Utils.printBoard(curGame, color);
                 System.out.print("[" + username + "] >>> ");
             }
+            case MOVE -> applyMove((MoveMessage) msg);
         }
     }
+
+    private void applyMove(MoveMessage msg) {
+        if (curGame == null || reloadPending) {
+            // No game has been loaded to play the move on yet, or the game being loaded already includes it.
+            return;
+        }
+        if (!msg.applyTo(curGame.game())) {
+            // Our copy missed a move or went wrong somewhere, so ask for the whole game again.
+            reloadPending = server.reload(authToken, curGame.gameID());
+            return;
+        }
+        System.out.println();
+        Utils.printBoard(curGame, color);
+        System.out.print("[" + username + "] >>> ");
+    }
 }
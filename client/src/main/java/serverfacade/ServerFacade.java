@@ -16,6 +16,7 @@ import result.ListResult;
 import websocket.commands.*;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
 import websocket.messages.NotificationMessage;
 import websocket.messages.ServerMessage;
 
@@ -43,6 +44,7 @@ public class ServerFacade extends Endpoint {
                             case NOTIFICATION -> ctx.deserialize(el, NotificationMessage.class);
                             case ERROR -> ctx.deserialize(el, ErrorMessage.class);
                             case LOAD_GAME -> ctx.deserialize(el, LoadGameMessage.class);
+                            case MOVE -> ctx.deserialize(el, MoveMessage.class);
                         };
                     }
                     return msg;
@@ -113,6 +115,21 @@ public class ServerFacade extends Endpoint {
         }
     }
 
+    /**
+     * Asks for the whole game again, for when the local copy no longer matches the server's.
+     * @return Whether the request was sent.
+     */
+    public boolean reload(String authToken, int id) {
+        try {
+            send(new ReloadCommand(authToken, id));
+            return true;
+        }
+        catch (Exception e) {
+            observer.notify(new ErrorMessage(e.getMessage()));
+            return false;
+        }
+    }
+
     public void send(UserGameCommand msg) throws IOException {
         this.session.getBasicRemote().sendText(new Gson().toJson(msg));
     }
@@ -0,0 +1,297 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameOverException;
+import chess.InvalidMoveException;
+import chess.PackedGame;
+import exceptions.DuplicateEntryException;
+import exceptions.EntryNotFoundException;
+import exceptions.TeamColorTakenException;
+import model.GameData;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GameDAO that keeps games in memory in front of another GameDAO, normally a {@link DatabaseGameDAO}.
+ * <p>
+ * A game is read from the underlying DAO the first time it is asked for and from memory after that. Moves and
+ * resignations are checked and applied in memory, then written to the underlying DAO as the same calls, in order,
+ * either at once or later depending on the {@link Durability}. Joining and leaving change who may move, so they first
+ * write out anything queued for the game and then go straight to the underlying DAO. Games that have ended are
+ * dropped from memory once everything queued for them is written.
+ * <p>
+ * The cache must be the only writer of the games it holds.
+ */
+public class CachingGameDAO implements GameDAO {
+
+    /**
+     * When queued writes reach the underlying DAO.
+     */
+    public enum Durability {
+        /**
+         * Every move is written before makeMove returns, so only reads are served from memory.
+         */
+        PER_MOVE,
+        /**
+         * Moves are written in batches by a background thread once per flush interval, so a crash loses at most
+         * that much play.
+         */
+        TIMED,
+        /**
+         * A game's moves are written when it ends or when {@link #flush()} is called, so a crash loses every
+         * unfinished game's moves.
+         */
+        GAME_END
+    }
+
+    /**
+     * A change to replay against the underlying DAO.
+     */
+    @FunctionalInterface
+    private interface Write {
+        void writeTo(GameDAO dao) throws DataAccessException, EntryNotFoundException, InvalidMoveException;
+    }
+
+    /**
+     * A cached game and the writes not yet made to the underlying DAO. Guarded by its own lock.
+     */
+    private static final class CachedGame {
+        private GameData data;
+        private final ArrayDeque<Write> pending = new ArrayDeque<>();
+        /**
+         * Set once the game is dropped from the cache, so a caller that looked it up just before retries.
+         */
+        private boolean evicted;
+
+        private CachedGame(GameData data) {
+            this.data = data;
+        }
+    }
+
+    private final GameDAO delegate;
+    private final Durability durability;
+    private final Map<Integer, CachedGame> games = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate The DAO games are read from and written to.
+     * @param durability When writes reach the delegate.
+     * @param flushIntervalMillis How often queued writes are written with {@link Durability#TIMED}.
+     */
+    public CachingGameDAO(GameDAO delegate, Durability durability, long flushIntervalMillis) {
+        this.delegate = delegate;
+        this.durability = durability;
+        if (durability == Durability.TIMED) {
+            var flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "game-cache-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        games.clear();
+        delegate.clear();
+    }
+
+    @Override
+    public int createGame(GameData gameData) throws DataAccessException, DuplicateEntryException {
+        return delegate.createGame(gameData);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException, EntryNotFoundException {
+        CachedGame cached = load(gameID);
+        synchronized (cached) {
+            return copy(cached.data);
+        }
+    }
+
+    @Override
+    public GameData[] listGames() throws DataAccessException {
+        GameData[] stored = delegate.listGames();
+        for (int i = 0; i < stored.length; i++) {
+            CachedGame cached = games.get(stored[i].gameID());
+            if (cached != null) {
+                synchronized (cached) {
+                    stored[i] = copy(cached.data);
+                }
+            }
+        }
+        return stored;
+    }
+
+    @Override
+    public void updateGame(int gameID, ChessGame.TeamColor color, String newUsername)
+            throws DataAccessException, EntryNotFoundException, TeamColorTakenException {
+        CachedGame cached = games.get(gameID);
+        if (cached == null) {
+            delegate.updateGame(gameID, color, newUsername);
+            return;
+        }
+        synchronized (cached) {
+            if (cached.data.player(color) != null) {
+                throw new TeamColorTakenException("Error: already taken");
+            }
+            flush(gameID, cached);
+            delegate.updateGame(gameID, color, newUsername);
+            cached.data = cached.data.newPlayer(color, newUsername);
+        }
+    }
+
+    @Override
+    public void playerLeave(int gameID, String username) throws DataAccessException, EntryNotFoundException {
+        CachedGame cached = games.get(gameID);
+        if (cached == null) {
+            delegate.playerLeave(gameID, username);
+            return;
+        }
+        synchronized (cached) {
+            flush(gameID, cached);
+            delegate.playerLeave(gameID, username);
+            GameData data = cached.data;
+            if (username.equals(data.whiteUsername())) {
+                cached.data = new GameData(gameID, null, data.blackUsername(), data.gameName(), data.game());
+            }
+            else if (username.equals(data.blackUsername())) {
+                cached.data = new GameData(gameID, data.whiteUsername(), null, data.gameName(), data.game());
+            }
+        }
+    }
+
+    @Override
+    public void makeMove(int gameID, String username, ChessMove move)
+            throws EntryNotFoundException, InvalidMoveException, DataAccessException {
+        while (true) {
+            CachedGame cached = load(gameID);
+            synchronized (cached) {
+                if (!cached.evicted) {
+                    GameData updated = copy(cached.data).makeMove(username, move);
+                    commit(gameID, cached, updated, dao -> dao.makeMove(gameID, username, move));
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setGameOver(int gameID) throws EntryNotFoundException, DataAccessException, GameOverException {
+        while (true) {
+            CachedGame cached = load(gameID);
+            synchronized (cached) {
+                if (!cached.evicted) {
+                    GameData updated = copy(cached.data);
+                    updated.game().setGameOver();
+                    try {
+                        commit(gameID, cached, updated, dao -> dao.setGameOver(gameID));
+                    } catch (GameOverException ex) {
+                        throw ex;
+                    } catch (InvalidMoveException ex) {
+                        throw new DataAccessException(ex.getMessage());
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes everything queued for every cached game.
+     * @throws DataAccessException if the underlying DAO cannot be reached. Writes that were not made stay queued.
+     */
+    public void flush() throws DataAccessException {
+        for (Map.Entry<Integer, CachedGame> entry : games.entrySet()) {
+            synchronized (entry.getValue()) {
+                flush(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Stores a change already checked against the cached game, writing it now or queueing it.
+     */
+    private void commit(int gameID, CachedGame cached, GameData updated, Write write)
+            throws DataAccessException, EntryNotFoundException, InvalidMoveException {
+        if (durability == Durability.PER_MOVE) {
+            write.writeTo(delegate);
+            cached.data = updated;
+        }
+        else {
+            cached.pending.addLast(write);
+            cached.data = updated;
+            if (durability == Durability.GAME_END && updated.game().isOver()) {
+                try {
+                    flush(gameID, cached);
+                } catch (DataAccessException ex) {
+                    // The game is over in memory either way; the writes stay queued for the next flush.
+                    System.out.printf("Could not write finished game %d: %s%n", gameID, ex.getMessage());
+                }
+            }
+        }
+        if (updated.game().isOver() && cached.pending.isEmpty()) {
+            evict(gameID, cached);
+        }
+    }
+
+    /**
+     * Writes a game's queued changes in order. Must be called holding the game's lock.
+     */
+    private void flush(int gameID, CachedGame cached) throws DataAccessException {
+        while (!cached.pending.isEmpty()) {
+            try {
+                cached.pending.peekFirst().writeTo(delegate);
+            } catch (EntryNotFoundException | InvalidMoveException ex) {
+                // The stored game no longer matches the cache, so it was changed elsewhere. Trust the store.
+                System.out.printf("Dropping cached game %d, which no longer matches the database: %s%n",
+                        gameID, ex.getMessage());
+                cached.pending.clear();
+                evict(gameID, cached);
+                return;
+            }
+            cached.pending.removeFirst();
+        }
+        if (cached.data.game().isOver()) {
+            evict(gameID, cached);
+        }
+    }
+
+    /**
+     * Drops a game from the cache. Must be called holding the game's lock.
+     */
+    private void evict(int gameID, CachedGame cached) {
+        cached.evicted = true;
+        games.remove(gameID, cached);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException ex) {
+            System.out.printf("Could not write cached games: %s%n", ex.getMessage());
+        }
+    }
+
+    private CachedGame load(int gameID) throws DataAccessException, EntryNotFoundException {
+        CachedGame cached = games.get(gameID);
+        if (cached != null) {
+            return cached;
+        }
+        GameData data = delegate.getGame(gameID);
+        return games.computeIfAbsent(gameID, id -> new CachedGame(data));
+    }
+
+    /**
+     * Copies a game so callers can neither see later changes nor change the cached one.
+     */
+    private static GameData copy(GameData data) {
+        return data.withGame(PackedGame.unpackGame(PackedGame.pack(data.game())));
+    }
+}
@@ -0,0 +1,283 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * Callers get a proxy whose {@code close()} hands the connection back instead of closing it, so DAOs keep using
+ * try-with-resources as before. At most {@code maxSize} connections are out at once; a caller waiting longer than the
+ * acquisition timeout gets an {@link SQLException}. Idle connections are reused most recently returned first and
+ * checked before being handed out if they have sat unused for a while. A background thread closes connections idle
+ * longer than the idle timeout (keeping {@code minSize} open) and reports connections borrowed for longer than the
+ * leak threshold, with the stack trace of the code that borrowed them.
+ * <p>
+ * Each connection keeps a {@link StatementCache}, so {@code prepareStatement(sql)} and
+ * {@code prepareStatement(sql, autoGeneratedKeys)} prepare a given SQL string once per connection.
+ */
+final class ConnectionPool {
+
+    /**
+     * Connections returned more recently than this are handed out again without a validation round trip.
+     */
+    static final long VALIDATION_GRACE_MILLIS = 500;
+
+    /**
+     * Opens a new physical connection.
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Pool limits, read from the db.pool.* properties of db.properties.
+     * @param minSize Connections kept open even when idle.
+     * @param maxSize Connections open at once, borrowed or idle.
+     * @param idleTimeoutMillis How long a connection above the minimum may sit idle before it is closed.
+     * @param acquireTimeoutMillis How long a caller waits for a connection when all are in use.
+     * @param validationTimeoutSeconds How long validating an idle connection may take.
+     * @param leakThresholdMillis How long a connection may be borrowed before it is reported as leaked, or 0 to
+     *                            disable leak detection.
+     * @param statementCacheSize Prepared statements kept open per connection, or 0 to prepare them on every call.
+     */
+    record Settings(int minSize, int maxSize, long idleTimeoutMillis, long acquireTimeoutMillis,
+                    int validationTimeoutSeconds, long leakThresholdMillis, int statementCacheSize) {
+
+        static Settings from(Properties props) {
+            int maxSize = Integer.parseInt(props.getProperty("db.pool.maxSize", "10"));
+            return new Settings(
+                    Math.min(maxSize, Integer.parseInt(props.getProperty("db.pool.minSize", "2"))),
+                    maxSize,
+                    Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "600000")),
+                    Long.parseLong(props.getProperty("db.pool.acquireTimeoutMillis", "5000")),
+                    Integer.parseInt(props.getProperty("db.pool.validationTimeoutSeconds", "2")),
+                    Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "30000")),
+                    Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "64")));
+        }
+    }
+
+    /**
+     * A physical connection and its statement cache, if statements are cached.
+     */
+    private record Physical(Connection connection, StatementCache statements) {
+    }
+
+    /**
+     * A physical connection and when it was last returned.
+     */
+    private record Idle(Physical physical, long returnedAt) {
+    }
+
+    /**
+     * A connection currently lent out, with where and when it was borrowed for leak reports.
+     */
+    private static final class Lease {
+        private final Physical physical;
+        private final long borrowedAt = System.currentTimeMillis();
+        private final Exception borrowedBy;
+        private volatile boolean closed;
+        private boolean reported;
+
+        private Lease(Physical physical, boolean traced) {
+            this.physical = physical;
+            this.borrowedBy = traced ? new Exception("Connection borrowed here") : null;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<Idle> idle = new LinkedBlockingDeque<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+
+    ConnectionPool(ConnectionFactory factory, Settings settings) {
+        if (settings.maxSize() < 1) {
+            throw new IllegalArgumentException("db.pool.maxSize must be at least 1");
+        }
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        ScheduledExecutorService housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(settings.idleTimeoutMillis(), 30000) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, opening one if none is idle and the pool is not full.
+     * @return A connection to close when done, which returns it to the pool.
+     * @throws SQLException if no connection frees up within the acquisition timeout, or opening one fails.
+     */
+    Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(settings.acquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException(String.format("Timed out after %d ms waiting for a database connection; all %d "
+                        + "are in use.", settings.acquireTimeoutMillis(), settings.maxSize()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.");
+        }
+        try {
+            return lend(takeIdleOrOpen());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return The number of physical connections open, borrowed or idle.
+     */
+    int size() {
+        return leases.size() + idle.size();
+    }
+
+    private Physical takeIdleOrOpen() throws SQLException {
+        for (Idle entry = idle.pollFirst(); entry != null; entry = idle.pollFirst()) {
+            if (System.currentTimeMillis() - entry.returnedAt() < VALIDATION_GRACE_MILLIS
+                    || entry.physical().connection().isValid(settings.validationTimeoutSeconds())) {
+                return entry.physical();
+            }
+            closeQuietly(entry.physical().connection());
+        }
+        return open();
+    }
+
+    private Physical open() throws SQLException {
+        Connection connection = factory.open();
+        return new Physical(connection, settings.statementCacheSize() > 0
+                ? new StatementCache(connection, settings.statementCacheSize()) : null);
+    }
+
+    private Connection lend(Physical physical) {
+        Lease lease = new Lease(physical, settings.leakThresholdMillis() > 0);
+        leases.add(lease);
+        Connection connection = physical.connection();
+        StatementCache statements = physical.statements();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            giveBack(lease);
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return lease.closed || connection.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Pooled " + connection;
+                        }
+                        default -> {
+                            if (lease.closed) {
+                                throw new SQLException("Connection has been returned to the pool.");
+                            }
+                            if (statements != null && method.getName().equals("prepareStatement")) {
+                                if (args.length == 1) {
+                                    return statements.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                                }
+                                if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                                    return statements.prepare((String) args[0], autoGeneratedKeys);
+                                }
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                        }
+                    }
+                });
+    }
+
+    private void giveBack(Lease lease) {
+        synchronized (lease) {
+            if (lease.closed) {
+                return;
+            }
+            lease.closed = true;
+        }
+        leases.remove(lease);
+        Connection connection = lease.physical.connection();
+        try {
+            if (lease.physical.statements() != null) {
+                lease.physical.statements().releaseAll();
+            }
+            // Leave the connection as a new one would be, so one caller's transaction never leaks into the next.
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.offerFirst(new Idle(lease.physical, System.currentTimeMillis()));
+        } catch (SQLException ex) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+
+        // The least recently used connections are at the back.
+        int open = size();
+        for (Idle entry = idle.peekLast(); entry != null && open > settings.minSize()
+                && now - entry.returnedAt() > settings.idleTimeoutMillis(); entry = idle.peekLast()) {
+            if (idle.removeLastOccurrence(entry)) {
+                closeQuietly(entry.physical().connection());
+                open--;
+            }
+        }
+
+        while (size() < settings.minSize() && permits.tryAcquire()) {
+            try {
+                idle.offerLast(new Idle(open(), now));
+            } catch (SQLException ex) {
+                // The database may not exist yet; the next round tries again.
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+
+        if (settings.leakThresholdMillis() > 0) {
+            for (Lease lease : leases) {
+                if (!lease.reported && now - lease.borrowedAt > settings.leakThresholdMillis()) {
+                    lease.reported = true;
+                    System.out.printf("Possible connection leak: a connection has been borrowed for %d ms.%n",
+                            now - lease.borrowedAt);
+                    lease.borrowedBy.printStackTrace(System.out);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -2,24 +2,105 @@ package dataaccess;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.PackedGame;
 import chess.GameOverException;
 import chess.InvalidMoveException;
 import exceptions.DuplicateEntryException;
 import exceptions.EntryNotFoundException;
+import exceptions.TeamColorTakenException;
 import model.GameData;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 public class DatabaseGameDAO implements GameDAO {
+
+    /**
+     * How games are written to the game column. Rows in either format are read back whatever the current setting.
+     */
+    public enum StorageFormat {
+        /**
+         * The whole ChessGame as Gson JSON, as rows were originally written.
+         */
+        JSON,
+        /**
+         * One FEN line with move counters and the game over flag, a few dozen bytes instead of kilobytes.
+         */
+        FEN,
+        /**
+         * The game packed by {@link PackedGame}, about 30 bytes. Needs the game column to be VARBINARY.
+         */
+        BINARY
+    }
+
+    /**
+     * Logged in place of a move when a player resigns. Its promotion bits are not a piece, so it is no move's code.
+     */
+    private static final int RESIGNATION = 7 << 12;
+
+    /**
+     * How many times a change is retried when other requests keep saving the same game first.
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    private static final String SELECT_GAME =
+            "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game WHERE gameID=?";
+
+    /**
+     * Each game row with its latest snapshot, if any, in place of the game column.
+     */
+    private static final String SELECT_LOGGED_GAMES = """
+            SELECT g.gameID, g.whiteUsername, g.blackUsername, g.gameName,
+                   COALESCE(s.game, g.game) AS game, COALESCE(s.ply, 0) AS ply
+            FROM game g LEFT JOIN game_snapshot s ON s.gameID = g.gameID
+            """;
+
+    /**
+     * The logged moves of games. Which of them come after a game's snapshot is decided by the ply read with the
+     * snapshot, not by joining game_snapshot again, since a newer snapshot may have been saved in between.
+     */
+    private static final String SELECT_LOGGED_MOVES = "SELECT gameID, ply, move FROM game_move";
+
+    private final StorageFormat format;
+    private final boolean eventSourced;
+    private final int snapshotInterval;
+
+    public DatabaseGameDAO() {
+        this(DatabaseManager.gameFormat(), DatabaseManager.eventSourcing(), DatabaseManager.snapshotInterval());
+    }
+
+    public DatabaseGameDAO(StorageFormat format) {
+        this(format, false, 0);
+    }
+
+    /**
+     * @param format How games are written.
+     * @param eventSourced Whether each move is appended to the game_move log instead of rewriting the game row. The
+     *                     game column then keeps the starting position, and the current game is rebuilt from the
+     *                     latest row of game_snapshot (or the game column) plus the moves logged after it.
+     * @param snapshotInterval When event sourced, a snapshot is written after every this many plies, so loading a
+     *                         game never replays more than this many moves. A snapshot is also written when the game
+     *                         ends. 0 or less only snapshots at the end.
+     */
+    public DatabaseGameDAO(StorageFormat format, boolean eventSourced, int snapshotInterval) {
+        this.format = format;
+        this.eventSourced = eventSourced;
+        this.snapshotInterval = snapshotInterval;
+    }
+
     @Override
     public void clear() throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            try (PreparedStatement ps = conn.prepareStatement("TRUNCATE TABLE game")) {
-                ps.executeUpdate();
+            for (String table : new String[] {"game", "game_move", "game_snapshot"}) {
+                try (PreparedStatement ps = conn.prepareStatement("TRUNCATE TABLE " + table)) {
+                    ps.executeUpdate();
+                }
             }
         }
         catch (SQLException ex) {
@@ -45,7 +126,7 @@ public class DatabaseGameDAO implements GameDAO {
                     ps.setString(1, gameData.whiteUsername());
                     ps.setString(2, gameData.blackUsername());
                     ps.setString(3, gameData.gameName());
-                    ps.setString(4, gameData.serializedGame());
+                    bindGame(ps, 4, gameData);
 
                     ps.executeUpdate();
                     ResultSet res = ps.getGeneratedKeys();
@@ -62,7 +143,7 @@ public class DatabaseGameDAO implements GameDAO {
                     ps.setString(2, gameData.whiteUsername());
                     ps.setString(3, gameData.blackUsername());
                     ps.setString(4, gameData.gameName());
-                    ps.setString(5, gameData.serializedGame());
+                    bindGame(ps, 5, gameData);
 
                     ps.executeUpdate();
                     return gameData.gameID();
@@ -77,18 +158,16 @@ public class DatabaseGameDAO implements GameDAO {
     @Override
     public GameData getGame(int gameID) throws DataAccessException, EntryNotFoundException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game WHERE gameID=?")) {
+            if (eventSourced) {
+                return replayGame(conn, gameID).data;
+            }
+            try (PreparedStatement ps = conn.prepareStatement(SELECT_GAME)) {
                 ps.setInt(1, gameID);
                 ResultSet rs = ps.executeQuery();
                 if (!rs.next()) {
                     throw new EntryNotFoundException(String.format("Game with ID %d not found.", gameID));
                 }
-                return new GameData(gameID,
-                        rs.getString("whiteUsername"),
-                        rs.getString("blackUsername"),
-                        rs.getString("gameName"),
-                        rs.getString("game"));
+                return readGameData(rs);
             }
         } catch (SQLException ex) {
             throw new DataAccessException(ex.getMessage());
@@ -98,17 +177,14 @@ public class DatabaseGameDAO implements GameDAO {
     @Override
     public GameData[] listGames() throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
+            if (eventSourced) {
+                return replayGames(conn, null).values().stream().map(logged -> logged.data).toArray(GameData[]::new);
+            }
             try (PreparedStatement ps = conn.prepareStatement("SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game")) {
                 ResultSet rs = ps.executeQuery();
                 ArrayList<GameData> games = new ArrayList<>();
                 while (rs.next()) {
-                    games.add(new GameData(
-                            rs.getInt("gameID"),
-                            rs.getString("whiteUsername"),
-                            rs.getString("blackUsername"),
-                            rs.getString("gameName"),
-                            rs.getString("game")
-                    ));
+                    games.add(readGameData(rs));
                 }
                 return games.toArray(new GameData[0]);
             }
@@ -118,30 +194,26 @@ public class DatabaseGameDAO implements GameDAO {
     }
 
     @Override
-    public void updateGame(int gameID, ChessGame.TeamColor color, String newUsername) throws DataAccessException, EntryNotFoundException {
+    public void updateGame(int gameID, ChessGame.TeamColor color, String newUsername)
+            throws DataAccessException, EntryNotFoundException, TeamColorTakenException {
+        String column = color == ChessGame.TeamColor.BLACK ? "blackUsername" : "whiteUsername";
         try (Connection conn = DatabaseManager.getConnection()) {
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game WHERE gameID=?")) {
+            // The seat is only taken if it is still empty, so of two racing joins exactly one updates the row.
+            try (PreparedStatement update = conn.prepareStatement(
+                    "UPDATE game SET " + column + "=? WHERE gameID=? AND " + column + " IS NULL")) {
+                update.setString(1, newUsername);
+                update.setInt(2, gameID);
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("SELECT gameID FROM game WHERE gameID=?")) {
                 ps.setInt(1, gameID);
-                ResultSet rs = ps.executeQuery();
-                if (!rs.next()) {
+                if (!ps.executeQuery().next()) {
                     throw new EntryNotFoundException(String.format("Game with ID %d not found.", gameID));
                 }
-                if (color == ChessGame.TeamColor.BLACK) {
-                    try (PreparedStatement update = conn.prepareStatement("UPDATE game SET blackUsername=? WHERE gameID=?")) {
-                        update.setString(1, newUsername);
-                        update.setInt(2, gameID);
-                        update.executeUpdate();
-                    }
-                }
-                else {
-                    try (PreparedStatement update = conn.prepareStatement("UPDATE game SET whiteUsername=? WHERE gameID=?")) {
-                        update.setString(1, newUsername);
-                        update.setInt(2, gameID);
-                        update.executeUpdate();
-                    }
-                }
             }
+            throw new TeamColorTakenException("Error: already taken");
         } catch (SQLException ex) {
             throw new DataAccessException(ex.getMessage());
         }
@@ -150,20 +222,21 @@ public class DatabaseGameDAO implements GameDAO {
     @Override
     public void playerLeave(int gameID, String username) throws DataAccessException, EntryNotFoundException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game WHERE gameID=?")) {
-                GameData data = getGame(gameID, ps);
-                if (username.equals(data.whiteUsername())) {
-                    try (PreparedStatement update = conn.prepareStatement("UPDATE game SET whiteUsername=NULL WHERE gameID=?")) {
-                        update.setInt(1, gameID);
-                        update.executeUpdate();
+            // Each update only clears the seat if the player still holds it, so a racing join is never undone.
+            for (String column : new String[] {"whiteUsername", "blackUsername"}) {
+                try (PreparedStatement update = conn.prepareStatement(
+                        "UPDATE game SET " + column + "=NULL WHERE gameID=? AND " + column + "=?")) {
+                    update.setInt(1, gameID);
+                    update.setString(2, username);
+                    if (update.executeUpdate() > 0) {
+                        return;
                     }
                 }
-                else if (username.equals(data.blackUsername())) {
-                    try (PreparedStatement update = conn.prepareStatement("UPDATE game SET blackUsername=NULL WHERE gameID=?")) {
-                        update.setInt(1, gameID);
-                        update.executeUpdate();
-                    }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("SELECT gameID FROM game WHERE gameID=?")) {
+                ps.setInt(1, gameID);
+                if (!ps.executeQuery().next()) {
+                    throw new EntryNotFoundException(String.format("Game with id %d not found.", gameID));
                 }
             }
         } catch (SQLException e) {
@@ -174,36 +247,26 @@ public class DatabaseGameDAO implements GameDAO {
     @Override
     public void makeMove(int gameID, String username, ChessMove move) throws EntryNotFoundException, InvalidMoveException, DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game WHERE gameID=?")) {
-                GameData data = getGame(gameID, ps);
-                data.makeMove(username, move);
-                try (PreparedStatement update = conn.prepareStatement("UPDATE game SET game=? WHERE gameID=?")) {
-                    update.setString(1, data.serializedGame());
-                    update.setInt(2, gameID);
-                    update.executeUpdate();
-                }
-
+            if (eventSourced) {
+                appendToLog(conn, gameID, move.encode(), data -> data.makeMove(username, move));
+            }
+            else {
+                compareAndSet(conn, gameID, data -> data.makeMove(username, move));
             }
         }
         catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
-
     }
 
     @Override
     public void setGameOver(int gameID) throws EntryNotFoundException, DataAccessException, GameOverException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game WHERE gameID=?")) {
-                GameData data = getGame(gameID, ps);
-                data.game().setGameOver();
-                try (PreparedStatement update = conn.prepareStatement("UPDATE game SET game=? WHERE gameID=?")) {
-                    update.setString(1, data.serializedGame());
-                    update.setInt(2, gameID);
-                    update.executeUpdate();
-                }
+            if (eventSourced) {
+                appendToLog(conn, gameID, RESIGNATION, data -> data.game().setGameOver());
+            }
+            else {
+                compareAndSet(conn, gameID, data -> data.game().setGameOver());
             }
         }
         catch (SQLException e) {
@@ -211,18 +274,211 @@ public class DatabaseGameDAO implements GameDAO {
         }
     }
 
-    private GameData getGame(int gameID, PreparedStatement ps) throws SQLException, EntryNotFoundException {
-        ps.setInt(1, gameID);
-        ResultSet rs = ps.executeQuery();
-        if (!rs.next()) {
+    /**
+     * A change to a game that may be rejected.
+     */
+    @FunctionalInterface
+    private interface GameChange<E extends Exception> {
+        void apply(GameData data) throws E;
+    }
+
+    /**
+     * Reads a game, changes it and writes it back only if the stored game is still the one that was read. If another
+     * request saved the game in between, the change is made again on the newer game, which may now reject it.
+     */
+    private <E extends Exception> void compareAndSet(Connection conn, int gameID, GameChange<E> change)
+            throws SQLException, DataAccessException, EntryNotFoundException, E {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            byte[] stored;
+            GameData data;
+            try (PreparedStatement ps = conn.prepareStatement(SELECT_GAME)) {
+                ps.setInt(1, gameID);
+                ResultSet rs = ps.executeQuery();
+                if (!rs.next()) {
+                    throw new EntryNotFoundException(String.format("Game with id %d not found.", gameID));
+                }
+                stored = rs.getBytes("game");
+                data = readGameData(rs);
+            }
+            change.apply(data);
+            try (PreparedStatement update = conn.prepareStatement("UPDATE game SET game=? WHERE gameID=? AND game=?")) {
+                bindGame(update, 1, data);
+                update.setInt(2, gameID);
+                update.setBytes(3, stored);
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            }
+        }
+        throw new DataAccessException(String.format("Game %d kept changing while saving it. Try again.", gameID));
+    }
+
+    /**
+     * Rebuilds a game, changes it and logs the change as the next ply. If another request logged that ply first, the
+     * game is rebuilt and the change made again.
+     */
+    private <E extends Exception> void appendToLog(Connection conn, int gameID, int code, GameChange<E> change)
+            throws SQLException, DataAccessException, EntryNotFoundException, E {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            LoggedGame logged = replayGame(conn, gameID);
+            change.apply(logged.data);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO game_move (gameID, ply, move) VALUES (?, ?, ?)")) {
+                insert.setInt(1, gameID);
+                insert.setInt(2, logged.ply + 1);
+                insert.setShort(3, (short) code);
+                insert.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException ex) {
+                continue;
+            }
+            logged.ply++;
+            if (logged.data.game().isOver() || snapshotInterval > 0 && logged.ply % snapshotInterval == 0) {
+                writeSnapshot(conn, logged);
+            }
+            return;
+        }
+        throw new DataAccessException(String.format("Game %d kept changing while saving it. Try again.", gameID));
+    }
+
+    /**
+     * @param gameID The game.
+     * @return Every move logged for the game, in the order played. Games are only logged when the DAO is event
+     * sourced.
+     */
+    public ChessMove[] getMoves(int gameID) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT move FROM game_move WHERE gameID=? ORDER BY ply")) {
+                ps.setInt(1, gameID);
+                ResultSet rs = ps.executeQuery();
+                ArrayList<ChessMove> moves = new ArrayList<>();
+                while (rs.next()) {
+                    int code = rs.getShort("move");
+                    if (code != RESIGNATION) {
+                        moves.add(ChessMove.decode(code));
+                    }
+                }
+                return moves.toArray(new ChessMove[0]);
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    /**
+     * A game rebuilt from its snapshot and move log, and the number of plies it has been played to.
+     */
+    private static final class LoggedGame {
+        private final GameData data;
+        private int ply;
+
+        private LoggedGame(GameData data, int ply) {
+            this.data = data;
+            this.ply = ply;
+        }
+
+        private void replay(int code) throws DataAccessException {
+            try {
+                if (code == RESIGNATION) {
+                    data.game().setGameOver();
+                }
+                else {
+                    data.game().makeMove(ChessMove.decode(code));
+                }
+            } catch (InvalidMoveException | IllegalArgumentException ex) {
+                throw new DataAccessException(String.format("Cannot replay move %d of game %d: %s",
+                        ply + 1, data.gameID(), ex.getMessage()));
+            }
+            ply++;
+        }
+    }
+
+    private LoggedGame replayGame(Connection conn, int gameID) throws SQLException, DataAccessException,
+            EntryNotFoundException {
+        LoggedGame logged = replayGames(conn, gameID).get(gameID);
+        if (logged == null) {
             throw new EntryNotFoundException(String.format("Game with id %d not found.", gameID));
         }
-        return new GameData(
-                rs.getInt("gameID"),
-                rs.getString("whiteUsername"),
-                rs.getString("blackUsername"),
-                rs.getString("gameName"),
-                rs.getString("game")
-        );
+        return logged;
+    }
+
+    /**
+     * Rebuilds one game, or every game when gameID is null, with one query for the snapshots and one for the moves.
+     * Only moves after the ply of the snapshot that was read are replayed, so a snapshot saved between the two queries
+     * cannot make a game skip the moves it covers.
+     */
+    private LinkedHashMap<Integer, LoggedGame> replayGames(Connection conn, Integer gameID)
+            throws SQLException, DataAccessException {
+        LinkedHashMap<Integer, LoggedGame> games = new LinkedHashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                SELECT_LOGGED_GAMES + (gameID == null ? "" : " WHERE g.gameID=?"))) {
+            if (gameID != null) {
+                ps.setInt(1, gameID);
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                games.put(rs.getInt("gameID"), new LoggedGame(readGameData(rs), rs.getInt("ply")));
+            }
+        }
+        if (games.isEmpty()) {
+            return games;
+        }
+        String movesQuery = SELECT_LOGGED_MOVES + (gameID == null ? "" : " WHERE gameID=? AND ply > ?");
+        try (PreparedStatement ps = conn.prepareStatement(movesQuery + " ORDER BY gameID, ply")) {
+            if (gameID != null) {
+                ps.setInt(1, gameID);
+                ps.setInt(2, games.get(gameID).ply);
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                LoggedGame logged = games.get(rs.getInt("gameID"));
+                if (logged != null && rs.getInt("ply") > logged.ply) {
+                    logged.replay(rs.getShort("move"));
+                }
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Saves the game as the snapshot for its current ply, replacing any older snapshot. The log alone is enough to
+     * rebuild the game, so a snapshot only bounds how many moves later loads replay.
+     */
+    private void writeSnapshot(Connection conn, LoggedGame logged) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO game_snapshot (gameID, ply, game) VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE ply=VALUES(ply), game=VALUES(game)
+                """)) {
+            ps.setInt(1, logged.data.gameID());
+            ps.setInt(2, logged.ply);
+            bindGame(ps, 3, logged.data);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Sets a statement parameter to the game in this DAO's storage format.
+     */
+    private void bindGame(PreparedStatement ps, int index, GameData data) throws SQLException {
+        switch (format) {
+            case JSON -> ps.setString(index, data.serializedGame());
+            case FEN -> ps.setString(index, data.fenGame());
+            case BINARY -> ps.setBytes(index, PackedGame.pack(data.game()));
+        }
+    }
+
+    /**
+     * Reads the current row of a game query, whichever format its game was stored in.
+     */
+    private GameData readGameData(ResultSet rs) throws SQLException {
+        int gameID = rs.getInt("gameID");
+        String whiteUsername = rs.getString("whiteUsername");
+        String blackUsername = rs.getString("blackUsername");
+        String gameName = rs.getString("gameName");
+        byte[] game = rs.getBytes("game");
+        if (PackedGame.isPacked(game)) {
+            return new GameData(gameID, whiteUsername, blackUsername, gameName, PackedGame.unpackGame(game));
+        }
+        return new GameData(gameID, whiteUsername, blackUsername, gameName,
+                new String(game, StandardCharsets.UTF_8));
     }
 }
@@ -8,6 +8,67 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final DatabaseGameDAO.StorageFormat GAME_FORMAT;
+    private static final boolean EVENT_SOURCING;
+    private static final int SNAPSHOT_INTERVAL;
+    private static final ConnectionPool.Settings POOL_SETTINGS;
+    private static final CachingGameDAO.Durability GAME_CACHE;
+    private static final long GAME_CACHE_FLUSH_MILLIS;
+
+    private static final String[] CREATE_STATEMENTS = {
+            """
+            CREATE TABLE IF NOT EXISTS auth (
+              authtoken CHAR(36) NOT NULL,
+              username VARCHAR(256) NOT NULL,
+              PRIMARY KEY (authtoken)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game (
+              gameID int AUTO_INCREMENT NOT NULL,
+              whiteUsername VARCHAR(256),
+              blackUsername VARCHAR(256),
+              gameName VARCHAR(256) NOT NULL,
+              game VARBINARY(4096) NOT NULL,
+              PRIMARY KEY (gameID)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_move (
+              gameID int NOT NULL,
+              ply int NOT NULL,
+              move SMALLINT NOT NULL,
+              created TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+              PRIMARY KEY (gameID, ply)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_snapshot (
+              gameID int NOT NULL,
+              ply int NOT NULL,
+              game VARBINARY(4096) NOT NULL,
+              PRIMARY KEY (gameID)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS user (
+              username VARCHAR(256) NOT NULL,
+              password VARCHAR(256) NOT NULL,
+              email VARCHAR(256) NOT NULL,
+              PRIMARY KEY (username)
+            )
+            """
+    };
+
+    /**
+     * Tables created before games could be stored packed have a text game column. Existing text keeps its bytes, so
+     * JSON and FEN rows still read back after the change.
+     */
+    private static final String GAME_COLUMN_TYPE = """
+            SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'game' AND COLUMN_NAME = 'game'
+            """;
+    private static final String WIDEN_GAME_COLUMN = "ALTER TABLE game MODIFY game VARBINARY(4096) NOT NULL";
 
     /*
      * Load the database information for the db.properties file.
@@ -23,36 +84,61 @@ public class DatabaseManager {
                 DATABASE_NAME = props.getProperty("db.name");
                 USER = props.getProperty("db.user");
                 PASSWORD = props.getProperty("db.password");
+                GAME_FORMAT = DatabaseGameDAO.StorageFormat.valueOf(
+                        props.getProperty("db.gameFormat", "fen").toUpperCase());
+                EVENT_SOURCING = Boolean.parseBoolean(props.getProperty("db.eventSourcing", "false"));
+                SNAPSHOT_INTERVAL = Integer.parseInt(props.getProperty("db.snapshotInterval", "32"));
+                POOL_SETTINGS = ConnectionPool.Settings.from(props);
+                var gameCache = props.getProperty("db.gameCache", "off");
+                GAME_CACHE = gameCache.equalsIgnoreCase("off") ? null
+                        : CachingGameDAO.Durability.valueOf(gameCache.toUpperCase());
+                GAME_CACHE_FLUSH_MILLIS = Long.parseLong(props.getProperty("db.gameCache.flushMillis", "1000"));
 
-                var host = props.getProperty("db.host");
-                var port = Integer.parseInt(props.getProperty("db.port"));
-                CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+                // db.url replaces the MySQL host and port, so an embedded database can stand in for benchmarks.
+                var url = props.getProperty("db.url");
+                if (url != null) {
+                    CONNECTION_URL = url;
+                }
+                else {
+                    var host = props.getProperty("db.host");
+                    var port = Integer.parseInt(props.getProperty("db.port"));
+                    // Statements stay prepared in the pool's statement cache, so have MySQL parse and plan each
+                    // one once per connection instead of the driver re-sending the full text on every execute.
+                    CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port)
+                            + (POOL_SETTINGS.statementCacheSize() > 0 ? "?useServerPrepStmts=true" : "");
+                }
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
         }
     }
 
+    /**
+     * The pool is created on first use, after {@link #createDatabase()} has made the catalog its connections use.
+     */
+    private static final class Pool {
+        private static final ConnectionPool INSTANCE = new ConnectionPool(DatabaseManager::openConnection, POOL_SETTINGS);
+    }
+
     /**
      * Creates the database if it does not already exist.
      */
     static void createDatabase() throws DataAccessException {
-        try {
-            var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
-                preparedStatement.executeUpdate();
-            }
+        var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+        try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrows a connection to the database from the connection pool, with the catalog
+     * set from the properties specified in db.properties. Connections to the database
+     * should be short-lived, and you must close the connection when you are done with
+     * it, which returns it to the pool. The easiest way to do that is with a
+     * try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DbInfo.getConnection(databaseName)) {
@@ -62,24 +148,97 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+            return Pool.INSTANCE.borrow();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        try {
             conn.setCatalog(DATABASE_NAME);
             return conn;
         } catch (SQLException e) {
-            throw new DataAccessException(e.getMessage());
+            conn.close();
+            throw e;
         }
     }
 
-    public static void configureDatabase(String[] createStatements) throws DataAccessException {
+    /**
+     * @return The format games are written in, from the optional db.gameFormat property (json, fen or binary,
+     * default fen).
+     */
+    static DatabaseGameDAO.StorageFormat gameFormat() {
+        return GAME_FORMAT;
+    }
+
+    /**
+     * @return Whether moves are appended to the move log instead of rewriting the game, from the optional
+     * db.eventSourcing property (default false).
+     */
+    static boolean eventSourcing() {
+        return EVENT_SOURCING;
+    }
+
+    /**
+     * @return How many plies an event-sourced game is played between snapshots, from the optional
+     * db.snapshotInterval property (default 32).
+     */
+    static int snapshotInterval() {
+        return SNAPSHOT_INTERVAL;
+    }
+
+    /**
+     * @return The game DAO to use: a {@link DatabaseGameDAO}, behind a {@link CachingGameDAO} if the optional
+     * db.gameCache property is per_move, timed or game_end (default off).
+     */
+    public static GameDAO createGameDAO() {
+        GameDAO gameDAO = new DatabaseGameDAO();
+        if (GAME_CACHE == null) {
+            return gameDAO;
+        }
+        return new CachingGameDAO(gameDAO, GAME_CACHE, GAME_CACHE_FLUSH_MILLIS);
+    }
+
+    /**
+     * Creates the database and any of its tables that do not already exist.
+     */
+    public static void configureDatabase() throws DataAccessException {
         DatabaseManager.createDatabase();
+        createTables();
+    }
+
+    /**
+     * Creates any tables that do not already exist in the catalog connections use, for databases that were created
+     * some other way.
+     */
+    static void createTables() throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
-            for (var statement : createStatements) {
+            for (var statement : CREATE_STATEMENTS) {
                 try (var preparedStatement = conn.prepareStatement(statement)) {
                     preparedStatement.executeUpdate();
                 }
             }
+            widenGameColumn(conn);
         } catch (SQLException ex) {
             throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()));
         }
     }
+
+    /**
+     * Changes a text game column to VARBINARY. Rewriting the column copies the whole table, so it is only done when
+     * the column is not already binary.
+     */
+    private static void widenGameColumn(Connection conn) throws SQLException {
+        try (var preparedStatement = conn.prepareStatement(GAME_COLUMN_TYPE);
+             var rs = preparedStatement.executeQuery()) {
+            if (!rs.next() || rs.getString(1).equalsIgnoreCase("varbinary")) {
+                return;
+            }
+        }
+        try (var preparedStatement = conn.prepareStatement(WIDEN_GAME_COLUMN)) {
+            preparedStatement.executeUpdate();
+        }
+    }
 }
@@ -6,6 +6,7 @@ import chess.GameOverException;
 import chess.InvalidMoveException;
 import exceptions.DuplicateEntryException;
 import exceptions.EntryNotFoundException;
+import exceptions.TeamColorTakenException;
 import model.GameData;
 
 public interface GameDAO {
@@ -42,14 +43,18 @@ public interface GameDAO {
     GameData[] listGames() throws DataAccessException;
 
     /**
-     * Update the game with the given ID so that its player of the given playerColor now has the new username.
+     * Update the game with the given ID so that its player of the given playerColor now has the new username, if
+     * nobody has that playerColor yet. Checking the seat and taking it happen as one step, so of two players joining
+     * as the same playerColor at once only one succeeds.
      * @param gameID The ID of the game being updated.
-     * @param color The playerColor of the player being replaced.
+     * @param color The playerColor being joined.
      * @param newUsername The new username associated with the given playerColor.
      * @throws EntryNotFoundException Indicates the given gameID is not found in the database.
+     * @throws TeamColorTakenException Indicates that another player already has the given playerColor.
      * @throws DataAccessException Indicates an error reaching the database.
      */
-    void updateGame(int gameID, ChessGame.TeamColor color, String newUsername) throws DataAccessException, EntryNotFoundException;
+    void updateGame(int gameID, ChessGame.TeamColor color, String newUsername)
+            throws DataAccessException, EntryNotFoundException, TeamColorTakenException;
 
     void playerLeave(int gameID, String username) throws DataAccessException, EntryNotFoundException;
 
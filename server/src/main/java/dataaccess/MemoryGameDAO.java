@@ -6,6 +6,7 @@ import chess.GameOverException;
 import chess.InvalidMoveException;
 import exceptions.DuplicateEntryException;
 import exceptions.EntryNotFoundException;
+import exceptions.TeamColorTakenException;
 import model.GameData;
 
 import java.util.HashMap;
@@ -43,8 +44,12 @@ public class MemoryGameDAO implements GameDAO{
     }
 
     @Override
-    public void updateGame(int gameID, ChessGame.TeamColor color, String newUsername) throws EntryNotFoundException {
+    public void updateGame(int gameID, ChessGame.TeamColor color, String newUsername)
+            throws EntryNotFoundException, TeamColorTakenException {
         GameData data = getOrThrow(gameID);
+        if (data.player(color) != null) {
+            throw new TeamColorTakenException("Error: already taken");
+        }
         database.put(data.gameID(), data.newPlayer(color, newUsername));
     }
 
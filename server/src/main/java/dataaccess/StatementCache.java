@@ -0,0 +1,154 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The prepared statements of one pooled connection, kept open so each SQL string is prepared once per connection
+ * rather than once per DAO call.
+ * <p>
+ * Callers get a proxy whose {@code close()} clears the parameters and keeps the statement for the next caller. The
+ * least recently used statement is closed once the cache is full. If a statement is still in use when the same SQL
+ * is prepared again, the second caller gets an ordinary statement of its own. A cache belongs to one connection, and
+ * a pooled connection is only used by one borrower at a time, so the cache is not thread safe.
+ */
+final class StatementCache {
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private Handle handle;
+        private boolean evicted;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * One caller's use of a cached statement, which ends when the caller closes it or returns the connection.
+     */
+    private static final class Handle {
+        private boolean closed;
+    }
+
+    private final Connection connection;
+    private final LinkedHashMap<Key, Entry> statements;
+
+    StatementCache(Connection connection, int size) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= size) {
+                    return false;
+                }
+                Entry entry = eldest.getValue();
+                if (entry.handle == null) {
+                    closeQuietly(entry.statement);
+                }
+                else {
+                    entry.evicted = true;
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param sql The statement.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}.
+     * @return The cached statement for the SQL, prepared now if this is the first use on the connection.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = statements.get(key);
+        if (entry == null) {
+            entry = new Entry(connection.prepareStatement(sql, autoGeneratedKeys));
+            statements.put(key, entry);
+        }
+        else if (entry.handle != null) {
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+        Handle handle = new Handle();
+        entry.handle = handle;
+        return lend(entry, handle);
+    }
+
+    /**
+     * Ends every use of the cached statements, for when the connection goes back to the pool.
+     */
+    void releaseAll() throws SQLException {
+        for (Entry entry : statements.values()) {
+            if (entry.handle != null) {
+                release(entry);
+            }
+        }
+    }
+
+    private PreparedStatement lend(Entry entry, Handle handle) {
+        PreparedStatement statement = entry.statement;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!handle.closed) {
+                                release(entry);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return handle.closed || statement.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Cached " + statement;
+                        }
+                        default -> {
+                            if (handle.closed) {
+                                throw new SQLException("Statement is closed.");
+                            }
+                            try {
+                                return method.invoke(statement, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                        }
+                    }
+                });
+    }
+
+    private void release(Entry entry) throws SQLException {
+        entry.handle.closed = true;
+        entry.handle = null;
+        if (entry.evicted) {
+            entry.statement.close();
+            return;
+        }
+        var results = entry.statement.getResultSet();
+        if (results != null) {
+            results.close();
+        }
+        entry.statement.clearParameters();
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -1,13 +1,205 @@
 package server;
 
-import com.google.gson.Gson;
+import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.common.WebSocketRemoteEndpoint;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
 import websocket.messages.ServerMessage;
 
-import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
 
-public record Connection(String username, Session session) {
-    public void send(ServerMessage msg) throws IOException {
-        session.getRemote().sendString(new Gson().toJson(msg));
+/**
+ * A user's WebSocket connection to a game, with a bounded queue of messages waiting to be written.
+ * <p>
+ * Sending only queues a message. Messages are written asynchronously, one at a time and in order, each write starting
+ * when the one before it completes, so a slow client backs up its own queue instead of holding the thread that sent
+ * to it. When the queue is full, the connection's {@link Overflow} policy decides what to give up.
+ */
+public final class Connection {
+
+    /**
+     * How a connection keeps its queue bounded, mostly by what it does when a message is sent while the queue is full.
+     */
+    public enum Overflow {
+        /**
+         * Drop the oldest queued notification, or the oldest queued message if there are no notifications.
+         */
+        DROP_OLDEST,
+        /**
+         * Keep at most one board update queued: a new one replaces the one waiting, and any moves waiting before it,
+         * whether or not the queue is full, since a client has no use for a board that is already out of date.
+         * Notifications stay queued in order, and when the queue is full anyway this behaves like
+         * {@link #DROP_OLDEST}.
+         */
+        COALESCE,
+        /**
+         * Close the connection.
+         */
+        DISCONNECT
+    }
+
+    private final int gameID;
+    private final String username;
+    private final Session session;
+    private final int capacity;
+    private final Overflow overflow;
+    /**
+     * Messages not yet handed to Jetty. Guarded by this connection's lock.
+     */
+    private final ArrayDeque<EncodedMessage> queue = new ArrayDeque<>();
+    private final Writer writer = new Writer();
+    private boolean closed;
+
+    /**
+     * @param capacity How many messages may wait to be written.
+     * @param overflow What to do when that many are waiting and another is sent.
+     */
+    public Connection(int gameID, String username, Session session, int capacity, Overflow overflow) {
+        this.gameID = gameID;
+        this.username = username;
+        this.session = session;
+        this.capacity = capacity;
+        this.overflow = overflow;
+    }
+
+    public int gameID() {
+        return gameID;
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public Session session() {
+        return session;
+    }
+
+    /**
+     * @return Whether the session is open and the connection has not given up on it.
+     */
+    public boolean isOpen() {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+        }
+        return session.isOpen();
+    }
+
+    public void send(ServerMessage msg) {
+        send(EncodedMessage.encode(msg));
+    }
+
+    /**
+     * Queues an already encoded message and returns without waiting for it to be written.
+     */
+    public void send(EncodedMessage msg) {
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (overflow == Overflow.COALESCE && msg.type() == ServerMessage.ServerMessageType.LOAD_GAME) {
+                queue.removeIf(queued -> queued.type() == ServerMessage.ServerMessageType.LOAD_GAME
+                        || queued.type() == ServerMessage.ServerMessageType.MOVE);
+            }
+            if (queue.size() >= capacity && !makeRoom()) {
+                closed = true;
+                queue.clear();
+                disconnect = true;
+            }
+            else {
+                queue.addLast(msg);
+            }
+        }
+        if (disconnect) {
+            System.out.printf("Disconnecting %s, who is %d messages behind%n", username, capacity);
+            session.close(StatusCode.POLICY_VIOLATION, "Too many messages waiting to be sent");
+        }
+        else {
+            writer.iterate();
+        }
+    }
+
+    /**
+     * Frees a place in the full queue according to the overflow policy. Must be called holding this connection's lock.
+     * @return false if the connection should be closed instead.
+     */
+    private boolean makeRoom() {
+        return switch (overflow) {
+            case DROP_OLDEST, COALESCE -> dropOldest();
+            case DISCONNECT -> false;
+        };
+    }
+
+    private boolean dropOldest() {
+        if (!removeFirst(ServerMessage.ServerMessageType.NOTIFICATION)) {
+            queue.removeFirst();
+        }
+        return true;
+    }
+
+    private boolean removeFirst(ServerMessage.ServerMessageType type) {
+        for (Iterator<EncodedMessage> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().type() == type) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes queued messages one at a time. Jetty calls back when each write completes, possibly on the thread that
+     * started it, and IteratingCallback turns that into a loop rather than a recursion.
+     */
+    private final class Writer extends IteratingCallback implements WriteCallback {
+        @Override
+        protected Action process() {
+            EncodedMessage next;
+            synchronized (Connection.this) {
+                next = queue.pollFirst();
+            }
+            if (next == null) {
+                return Action.IDLE;
+            }
+            RemoteEndpoint remote = session.getRemote();
+            if (remote instanceof WebSocketRemoteEndpoint endpoint) {
+                // Jetty's own endpoint takes the shared UTF-8 payload as is, so nothing is encoded per connection.
+                endpoint.uncheckedSendFrame(new TextFrame().setPayload(next.payload()), this);
+            }
+            else {
+                remote.sendString(next.json(), this);
+            }
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        public void writeSuccess() {
+            succeeded();
+        }
+
+        @Override
+        public void writeFailed(Throwable x) {
+            failed(x);
+        }
+
+        /**
+         * Gives up on the connection once a write fails, since the messages after the lost one would leave the client
+         * with a game it cannot trust.
+         */
+        @Override
+        protected void onCompleteFailure(Throwable cause) {
+            synchronized (Connection.this) {
+                closed = true;
+                queue.clear();
+            }
+            System.out.printf("Could not send message to %s: %s%n", username, cause);
+            session.close(StatusCode.SERVER_ERROR, "Could not send a message");
+        }
     }
 }
@@ -3,42 +3,123 @@ package server;
 import org.eclipse.jetty.websocket.api.Session;
 import websocket.messages.ServerMessage;
 
-import java.io.IOException;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The WebSocket connections of every game, indexed by game for broadcasting and by session so a session's connection
+ * is found, replaced or removed without scanning every game. A session is registered with at most one game at a time.
+ */
 public class ConnectionManager {
+    /**
+     * Each game's connections. The sets are concurrent so a broadcast can run while connections come and go, and a
+     * game's set is only created or dropped inside compute(), so a connection is never added to a set just dropped.
+     */
     public final ConcurrentHashMap<Integer, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, Connection> sessions = new ConcurrentHashMap<>();
 
+    private final int queueSize;
+    private final Connection.Overflow overflow;
+
+    /**
+     * Reads each connection's queue size from -Dchess.sendQueueSize (default 64) and what to do when it fills from
+     * -Dchess.sendOverflow, which is drop_oldest, coalesce (the default) or disconnect.
+     */
+    public ConnectionManager() {
+        this(Integer.getInteger("chess.sendQueueSize", 64),
+                Connection.Overflow.valueOf(System.getProperty("chess.sendOverflow", "coalesce").toUpperCase()));
+    }
+
+    public ConnectionManager(int queueSize, Connection.Overflow overflow) {
+        this.queueSize = queueSize;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Registers a session with a game, replacing any game it was registered with before. Registering a session again
+     * with the same game and user keeps its existing connection and queue.
+     */
     public void add(int gameID, String username, Session session) {
-        connections.computeIfAbsent(gameID, k -> new HashSet<>()).add(new Connection(username, session));
+        Connection existing = sessions.get(session);
+        if (existing != null && existing.gameID() == gameID && existing.username().equals(username)) {
+            return;
+        }
+        Connection conn = new Connection(gameID, username, session, queueSize, overflow);
+        Connection replaced = sessions.put(session, conn);
+        if (replaced != null) {
+            detach(replaced);
+        }
+        connections.compute(gameID, (id, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(conn);
+            return set;
+        });
+        if (sessions.get(session) != conn) {
+            // The session was registered again or removed while this connection was being added.
+            detach(conn);
+        }
     }
 
-    public void remove(String visitorName) {
-        connections.forEach((gameID, set) -> set.removeIf(conn -> conn.username().equals(visitorName)));
+    /**
+     * @return The connection a session is registered with, or null.
+     */
+    public Connection get(Session session) {
+        return sessions.get(session);
     }
 
-    public void broadcast(int gameID, ServerMessage notification) throws IOException {
+    /**
+     * Unregisters a session from whichever game it is registered with.
+     */
+    public void remove(Session session) {
+        Connection conn = sessions.remove(session);
+        if (conn != null) {
+            detach(conn);
+        }
+    }
+
+    /**
+     * Queues a message for one session, behind anything already queued for it.
+     */
+    public void send(Session session, ServerMessage msg) {
+        Connection conn = sessions.get(session);
+        if (conn == null) {
+            conn = new Connection(0, null, session, queueSize, overflow);
+        }
+        conn.send(msg);
+    }
+
+    public void broadcast(int gameID, ServerMessage notification) {
         broadcast(gameID, notification, null);
     }
 
-    public void broadcast(int gameID, ServerMessage notification, String excludeUsername) throws IOException {
-        Set<Connection> removeSet = new HashSet<>();
+    /**
+     * Queues a message for every open connection in a game, serializing it only once however many connections there
+     * are. Returns without waiting for any of them to be written. Connections found closed are unregistered.
+     * @param excludeUsername A user not to send the message to, or null.
+     */
+    public void broadcast(int gameID, ServerMessage notification, String excludeUsername) {
         Set<Connection> connectionsByID = connections.get(gameID);
+        if (connectionsByID == null) {
+            return;
+        }
+        EncodedMessage encoded = EncodedMessage.encode(notification);
         for (Connection conn : connectionsByID) {
-            if (conn.session().isOpen()) {
-                if (!conn.username().equals(excludeUsername)) {
-                    conn.send(notification);
-                }
+            if (!conn.isOpen()) {
+                sessions.remove(conn.session(), conn);
+                detach(conn);
             }
-            else {
-                removeSet.add(conn);
+            else if (!conn.username().equals(excludeUsername)) {
+                conn.send(encoded);
             }
         }
-        connectionsByID.removeIf(removeSet::contains);
-        if (connectionsByID.isEmpty()) {
-            connections.remove(gameID);
-        }
+    }
+
+    private void detach(Connection conn) {
+        connections.computeIfPresent(conn.gameID(), (id, set) -> {
+            set.remove(conn);
+            return set.isEmpty() ? null : set;
+        });
     }
 }
@@ -0,0 +1,46 @@
+package server;
+
+import com.google.gson.Gson;
+import websocket.messages.ServerMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A server message serialized once, as JSON and as the UTF-8 payload of a WebSocket text frame, so it can be written
+ * to any number of connections without encoding it again.
+ */
+public final class EncodedMessage {
+
+    private static final Gson GSON = new Gson();
+
+    private final ServerMessage.ServerMessageType type;
+    private final String json;
+    private final ByteBuffer payload;
+
+    private EncodedMessage(ServerMessage.ServerMessageType type, String json) {
+        this.type = type;
+        this.json = json;
+        this.payload = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    public static EncodedMessage encode(ServerMessage message) {
+        return new EncodedMessage(message.getServerMessageType(), GSON.toJson(message));
+    }
+
+    public ServerMessage.ServerMessageType type() {
+        return type;
+    }
+
+    public String json() {
+        return json;
+    }
+
+    /**
+     * @return The UTF-8 encoded JSON. Each call returns a new view of the same bytes, so every frame it is written in
+     * can be consumed independently.
+     */
+    public ByteBuffer payload() {
+        return payload.duplicate();
+    }
+}
@@ -0,0 +1,118 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks for each game one at a time and in the order they were submitted, while tasks for different games run
+ * in parallel on a shared executor.
+ * <p>
+ * Each game with work waiting has a mailbox. The first task submitted to an empty mailbox schedules it on the
+ * executor, and the mailbox then runs its tasks until it is empty, at which point it is dropped. A mailbox gives up its
+ * thread after a batch of tasks so one busy game cannot hold a thread forever.
+ */
+public class GameExecutor {
+
+    private static final int BATCH = 32;
+
+    private final ExecutorService workers;
+    /**
+     * Mailboxes with work waiting. A mailbox's tasks are only touched inside compute() on its game, which is what
+     * makes adding a task and dropping an empty mailbox atomic.
+     */
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public GameExecutor(ExecutorService workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Queues a task to run after every task already submitted for the same game.
+     * @param gameID The game the task belongs to.
+     * @param task The task. Exceptions it throws are reported and do not stop later tasks.
+     * @throws RejectedExecutionException if the executor has been shut down and the game has no tasks waiting.
+     */
+    public void execute(int gameID, Runnable task) {
+        mailboxes.compute(gameID, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new Mailbox(id);
+                workers.execute(mailbox);
+            }
+            mailbox.tasks.addLast(task);
+            return mailbox;
+        });
+    }
+
+    /**
+     * Stops taking tasks for games with nothing waiting. Games that still have tasks waiting run them all, including
+     * any submitted after this.
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Waits for every waiting task to finish after {@link #shutdown()}.
+     * @return Whether they finished before the timeout.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    private final class Mailbox implements Runnable {
+        private final int gameID;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        private Mailbox(int gameID) {
+            this.gameID = gameID;
+        }
+
+        @Override
+        public void run() {
+            boolean drained = false;
+            try {
+                drained = runBatch();
+            } finally {
+                if (!drained) {
+                    // Either the batch is used up or a task threw an Error. Both ways, the game's other tasks must
+                    // still run, so the mailbox goes back on the executor rather than being left in the map forever.
+                    reschedule();
+                }
+            }
+        }
+
+        private void reschedule() {
+            try {
+                workers.execute(this);
+            } catch (RejectedExecutionException ex) {
+                // Shutting down: the workers take nothing new, so finish the game's tasks on this thread.
+                run();
+            }
+        }
+
+        /**
+         * @return Whether the mailbox ran out of tasks and was dropped.
+         */
+        private boolean runBatch() {
+            for (int ran = 0; ran < BATCH; ran++) {
+                Runnable[] next = new Runnable[1];
+                mailboxes.compute(gameID, (id, mailbox) -> {
+                    next[0] = tasks.pollFirst();
+                    return next[0] == null ? null : mailbox;
+                });
+                if (next[0] == null) {
+                    return true;
+                }
+                try {
+                    next[0].run();
+                } catch (RuntimeException ex) {
+                    System.out.printf("Command for game %d failed: %s%n", gameID, ex);
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import dataaccess.*;
 import exceptions.*;
 import model.GameData;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 import request.*;
@@ -15,18 +16,50 @@ import service.ClearService;
 import service.GameService;
 import service.UserService;
 import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 import websocket.commands.*;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
 import websocket.messages.NotificationMessage;
 import websocket.messages.ServerMessage;
 
-import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @WebSocket
 public class Server {
 
     private final ConnectionManager connections = new ConnectionManager();
+    /**
+     * Whether HTTP requests and WebSocket commands run on virtual threads, set with -Dchess.virtualThreads=true.
+     * Concurrent database work is still capped by the connection pool's db.pool.maxSize.
+     */
+    private final boolean virtualThreads = Boolean.getBoolean("chess.virtualThreads");
+    /**
+     * Runs WebSocket commands, one game at a time, on virtual threads or on a pool whose size is set with
+     * -Dchess.commandThreads.
+     */
+    private final GameExecutor commands = new GameExecutor(virtualThreads
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-commands-", 0).factory())
+            : Executors.newFixedThreadPool(
+                    Integer.getInteger("chess.commandThreads", 2 * Runtime.getRuntime().availableProcessors()),
+                    task -> {
+                        Thread thread = new Thread(task, "game-commands");
+                        thread.setDaemon(true);
+                        return thread;
+                    }));
+    /**
+     * Whether LOAD_GAME messages carry the game packed instead of as JSON, set with -Dchess.packLoadGame=true.
+     */
+    private final boolean packLoadGame = Boolean.getBoolean("chess.packLoadGame");
+    /**
+     * Whether moves are broadcast as MOVE messages for clients to play on their own copy instead of as a LOAD_GAME of
+     * the whole game, set with -Dchess.moveDeltas=true.
+     */
+    private final boolean moveDeltas = Boolean.getBoolean("chess.moveDeltas");
     private final Gson serializer;
 
     private final ClearService clearService;
@@ -37,42 +70,14 @@ public class Server {
     private final GameDAO gameDAO;
     private final UserDAO userDAO;
 
-    String[] createStatements = {
-            """
-            CREATE TABLE IF NOT EXISTS auth (
-              authtoken CHAR(36) NOT NULL,
-              username VARCHAR(256) NOT NULL,
-              PRIMARY KEY (authtoken)
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS game (
-              gameID int AUTO_INCREMENT NOT NULL,
-              whiteUsername VARCHAR(256),
-              blackUsername VARCHAR(256),
-              gameName VARCHAR(256) NOT NULL,
-              game VARCHAR(4096) NOT NULL,
-              PRIMARY KEY (gameID)
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS user (
-              username VARCHAR(256) NOT NULL,
-              password VARCHAR(256) NOT NULL,
-              email VARCHAR(256) NOT NULL,
-              PRIMARY KEY (username)
-            )
-            """
-    };
-
     public Server() {
         try {
-            DatabaseManager.configureDatabase(createStatements);
+            DatabaseManager.configureDatabase();
         } catch (DataAccessException e) {
             throw new RuntimeException(e);
         }
         authDAO = new DatabaseAuthDAO();
-        gameDAO = new DatabaseGameDAO();
+        gameDAO = DatabaseManager.createGameDAO();
         userDAO = new DatabaseUserDAO();
 
 
@@ -90,6 +95,7 @@ public class Server {
                             case MAKE_MOVE -> ctx.deserialize(el, MakeMoveCommand.class);
                             case LEAVE -> ctx.deserialize(el, LeaveCommand.class);
                             case RESIGN -> ctx.deserialize(el, ResignCommand.class);
+                            case RELOAD -> ctx.deserialize(el, ReloadCommand.class);
                         };
                     }
                     return cmd;
@@ -97,12 +103,18 @@ public class Server {
     }
 
     public int run(int desiredPort) {
+        if (virtualThreads) {
+            EmbeddedServers.add(EmbeddedServers.defaultIdentifier(),
+                    new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool()));
+        }
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("web");
 
         // Register your endpoints and handle exceptions here.
-        Spark.webSocket("/ws", Server.class);
+        // Passing this instance rather than the class keeps Spark from creating a second Server, so HTTP and
+        // WebSocket handlers share one game DAO and any games it caches.
+        Spark.webSocket("/ws", this);
         Spark.delete("/db", this::clear);
         Spark.post("/user", this::register);
         Spark.post("/session", this::login);
@@ -124,24 +136,66 @@ public class Server {
         return Spark.port();
     }
 
+    /**
+     * Stops taking commands and requests, lets the ones already taken finish, and only then saves any cached games,
+     * so nothing changes a game after it is saved.
+     */
     public void stop() {
+        commands.shutdown();
         Spark.stop();
+        try {
+            if (!commands.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.out.println("Stopped waiting for game commands to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         Spark.awaitStop();
+        if (gameDAO instanceof CachingGameDAO cache) {
+            try {
+                cache.flush();
+            } catch (DataAccessException e) {
+                System.out.printf("Could not save cached games: %s%n", e.getMessage());
+            }
+        }
     }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String msg) {
+        UserGameCommand cmd;
+        int gameID;
         try {
-            UserGameCommand cmd = serializer.fromJson(msg, UserGameCommand.class);
+            cmd = serializer.fromJson(msg, UserGameCommand.class);
+            gameID = cmd.getGameID();
+        }
+        catch (Exception e) {
+            send(session, new ErrorMessage(e.getMessage()));
+            return;
+        }
+        // Commands for one game run one at a time, in the order they arrived, so a game's state and its
+        // connections are never changed by two commands at once. Different games still run in parallel.
+        try {
+            commands.execute(gameID, () -> handle(session, cmd));
+        } catch (RejectedExecutionException e) {
+            send(session, new ErrorMessage("The server is shutting down."));
+        }
+    }
+
+    @OnWebSocketClose
+    public void onClose(Session session, int statusCode, String reason) {
+        connections.remove(session);
+    }
 
+    private void handle(Session session, UserGameCommand cmd) {
+        try {
             String username = authDAO.getAuth(cmd.getAuthToken()).username();
             int gameID = cmd.getGameID();
-            saveSession(gameID, username, session);
             switch (cmd.getCommandType()) {
                 case CONNECT -> connect(session, username, gameID, ((ConnectCommand)cmd).getColor());
                 case MAKE_MOVE -> makeMove(session, username, gameID, ((MakeMoveCommand)cmd).getMove());
                 case LEAVE -> leave(session, username, gameID);
                 case RESIGN -> resign(session, username, gameID);
+                case RELOAD -> reload(session, gameID);
             }
         }
         catch (UnauthorizedException e) {
@@ -153,9 +207,11 @@ public class Server {
     }
 
     private void connect(Session session, String username, int gameID, ChessGame.TeamColor color)
-            throws IOException, DataAccessException {
+            throws DataAccessException {
         try {
-            send(session, new LoadGameMessage(new Gson().toJson(gameDAO.getGame(gameID))));
+            GameData game = gameDAO.getGame(gameID);
+            saveSession(gameID, username, session);
+            send(session, loadGameMessage(game));
             if (color == null) {
                 connections.broadcast(gameID, new NotificationMessage(username + " is now observing!"), username);
 
@@ -169,10 +225,10 @@ public class Server {
         }
     }
 
-    private void leave(Session session, String username, int gameID) throws IOException, DataAccessException {
+    private void leave(Session session, String username, int gameID) throws DataAccessException {
         try {
             gameDAO.playerLeave(gameID, username);
-            connections.remove(username);
+            connections.remove(session);
             connections.broadcast(gameID, new NotificationMessage(username + " has left the match."), username);
         }
         catch (EntryNotFoundException e) {
@@ -180,34 +236,32 @@ public class Server {
         }
     }
 
-    private void makeMove(Session session, String username, int gameID, ChessMove move) throws IOException, DataAccessException {
+    private void makeMove(Session session, String username, int gameID, ChessMove move) throws DataAccessException {
         try {
             GameData game = gameDAO.getGame(gameID);
-            ChessGame.TeamColor color;
             String opponentName;
             if (game.whiteUsername().equals(username)) {
-                color = ChessGame.TeamColor.WHITE;
                 opponentName = game.blackUsername();
             }
             else  {
-                color = ChessGame.TeamColor.BLACK;
                 opponentName = game.whiteUsername();
             }
             gameDAO.makeMove(gameID, username, move);
             game = gameDAO.getGame(gameID);
 
-            connections.broadcast(gameID, new LoadGameMessage(new Gson().toJson(game)));
+            connections.broadcast(gameID, moveDeltas ? MoveMessage.after(move, game.game()) : loadGameMessage(game));
             connections.broadcast(gameID, new NotificationMessage(username + " moved " +
                     move.getStartPosition().chessNotation() + " to " +
                     move.getEndPosition().chessNotation() + "."), username);
-            if (game.game().isInCheckmate(color.opposite())) {
-                connections.broadcast(gameID, new NotificationMessage(opponentName + " is now in checkmate!"));
-            }
-            else if (game.game().isInCheck(color.opposite())) {
-                connections.broadcast(gameID, new NotificationMessage(opponentName + " is now in check!"));
-            }
-            else if (game.game().isInStalemate(color.opposite())) {
-                connections.broadcast(gameID, new NotificationMessage("Stalemate!"));
+            switch (game.game().getStatus()) {
+                case CHECKMATE ->
+                        connections.broadcast(gameID, new NotificationMessage(opponentName + " is now in checkmate!"));
+                case CHECK -> connections.broadcast(gameID, new NotificationMessage(opponentName + " is now in check!"));
+                case STALEMATE -> connections.broadcast(gameID, new NotificationMessage("Stalemate!"));
+                case SEVENTY_FIVE_MOVE -> connections.broadcast(gameID, new NotificationMessage(
+                        "Seventy-five moves without a capture or pawn move. The game is a draw."));
+                default -> {
+                }
             }
         } catch (EntryNotFoundException e) {
             send(session, new ErrorMessage("No game with ID " + gameID + " exists."));
@@ -224,7 +278,16 @@ public class Server {
         }
     }
 
-    private void resign(Session session, String username, int gameID) throws IOException, DataAccessException {
+    private void reload(Session session, int gameID) throws DataAccessException {
+        try {
+            send(session, loadGameMessage(gameDAO.getGame(gameID)));
+        }
+        catch (EntryNotFoundException e) {
+            send(session, new ErrorMessage("No game with ID " + gameID + " exists."));
+        }
+    }
+
+    private void resign(Session session, String username, int gameID) throws DataAccessException {
         try {
             GameData data = gameDAO.getGame(gameID);
             if (!username.equals(data.whiteUsername()) && !username.equals(data.blackUsername())) {
@@ -243,16 +306,16 @@ public class Server {
         }
     }
 
+    private LoadGameMessage loadGameMessage(GameData game) {
+        return packLoadGame ? LoadGameMessage.packed(game) : new LoadGameMessage(new Gson().toJson(game));
+    }
+
     private void saveSession(int gameID, String username, Session session) {
         connections.add(gameID, username, session);
     }
 
     private void send(Session session, ServerMessage msg) {
-        try {
-            session.getRemote().sendString(new Gson().toJson(msg));
-        } catch (IOException e) {
-            System.out.printf("Could not send message to client.%nMessage: %s%n", new Gson().toJson(msg));
-        }
+        connections.send(session, msg);
     }
 
     private String formatError(String msg) {
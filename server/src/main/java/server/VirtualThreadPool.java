@@ -0,0 +1,65 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Jetty thread pool that runs every task on a new virtual thread, so a request blocked on the database or on
+ * hashing a password holds no platform thread and the number of requests in progress is not capped by a pool size.
+ * <p>
+ * Jetty starts and stops the pool with the server, and joining the server waits here until it stops.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+    private final Executor executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("jetty-virtual-", 0).factory());
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile CountDownLatch stopped = new CountDownLatch(1);
+
+    @Override
+    protected void doStart() {
+        stopped = new CountDownLatch(1);
+    }
+
+    @Override
+    protected void doStop() {
+        stopped.countDown();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
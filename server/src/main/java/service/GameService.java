@@ -71,11 +71,7 @@ public class GameService {
     public void join(JoinRequest request, AuthTokenRequest authTokenRequest)
             throws DataAccessException, UnauthorizedException, TeamColorTakenException, EntryNotFoundException {
         AuthData auth = authDAO.getAuth(authTokenRequest.authToken());
-        GameData game = gameDAO.getGame(request.gameID());
-        if ((request.playerColor() == ChessGame.TeamColor.BLACK && game.blackUsername() != null) ||
-            (request.playerColor() == ChessGame.TeamColor.WHITE && game.whiteUsername() != null)) {
-            throw new TeamColorTakenException("Error: already taken");
-        }
+        // The DAO checks the seat is empty as it takes it, so a join racing this one cannot be overwritten.
         gameDAO.updateGame(request.gameID(), request.playerColor(), auth.username());
     }
 }
@@ -0,0 +1,109 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.WrongTurnException;
+import exceptions.EntryNotFoundException;
+import exceptions.TeamColorTakenException;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CachingGameDAOTests {
+
+    private static final ChessMove KNIGHT_OUT = new ChessMove(ChessPosition.getPosition(1, 7),
+            ChessPosition.getPosition(3, 6), null);
+    private static final ChessMove KNIGHT_REPLY = new ChessMove(ChessPosition.getPosition(8, 7),
+            ChessPosition.getPosition(6, 6), null);
+
+    private int storedReads;
+    private MemoryGameDAO stored;
+
+    @BeforeEach
+    public void init() throws Exception {
+        storedReads = 0;
+        stored = new MemoryGameDAO() {
+            @Override
+            public GameData getGame(int gameID) throws EntryNotFoundException {
+                storedReads++;
+                return super.getGame(gameID);
+            }
+        };
+        stored.createGame(new GameData(1, "white", "black", "game", new ChessGame()));
+    }
+
+    @Test
+    public void readsAreServedFromMemory() throws Exception {
+        CachingGameDAO cache = new CachingGameDAO(stored, CachingGameDAO.Durability.PER_MOVE, 0);
+        cache.getGame(1);
+        cache.makeMove(1, "white", KNIGHT_OUT);
+        GameData game = cache.getGame(1);
+
+        Assertions.assertEquals(1, storedReads, "Only the first read should reach the stored game");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.game().getTeamTurn());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, stored.database.get(1).game().getTeamTurn(),
+                "Per-move durability should write the move before returning");
+
+        game.game().makeMove(KNIGHT_REPLY);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, cache.getGame(1).game().getTeamTurn(),
+                "Changing a returned game should not change the cached one");
+    }
+
+    @Test
+    public void gameEndDurabilityWritesWhenTheGameEnds() throws Exception {
+        CachingGameDAO cache = new CachingGameDAO(stored, CachingGameDAO.Durability.GAME_END, 0);
+        cache.makeMove(1, "white", KNIGHT_OUT);
+        cache.makeMove(1, "black", KNIGHT_REPLY);
+        Assertions.assertEquals(new ChessGame().getBoard(), stored.database.get(1).game().getBoard(),
+                "Moves should stay queued until the game ends");
+
+        cache.setGameOver(1);
+        ChessGame written = stored.database.get(1).game();
+        Assertions.assertTrue(written.isOver());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, written.getTeamTurn());
+
+        cache.getGame(1);
+        Assertions.assertEquals(2, storedReads, "A finished game should be dropped from the cache");
+    }
+
+    @Test
+    public void rejectedMovesAreNotQueued() throws Exception {
+        CachingGameDAO cache = new CachingGameDAO(stored, CachingGameDAO.Durability.GAME_END, 0);
+        Assertions.assertThrows(WrongTurnException.class, () -> cache.makeMove(1, "black", KNIGHT_REPLY));
+        cache.makeMove(1, "white", KNIGHT_OUT);
+        cache.flush();
+
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, stored.database.get(1).game().getTeamTurn());
+    }
+
+    @Test
+    public void leavingWritesQueuedMovesFirst() throws Exception {
+        CachingGameDAO cache = new CachingGameDAO(stored, CachingGameDAO.Durability.TIMED, 60000);
+        cache.makeMove(1, "white", KNIGHT_OUT);
+        cache.playerLeave(1, "white");
+
+        GameData written = stored.database.get(1);
+        Assertions.assertNull(written.whiteUsername());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, written.game().getTeamTurn(),
+                "The move should be written while white was still playing");
+        Assertions.assertNull(cache.getGame(1).whiteUsername());
+    }
+
+    @Test
+    public void joiningATakenSeatFails() throws Exception {
+        stored.createGame(new GameData(2, "white", null, "open game", new ChessGame()));
+        CachingGameDAO cache = new CachingGameDAO(stored, CachingGameDAO.Durability.GAME_END, 0);
+        cache.getGame(2);
+
+        Assertions.assertThrows(TeamColorTakenException.class,
+                () -> cache.updateGame(2, ChessGame.TeamColor.WHITE, "late"));
+        cache.updateGame(2, ChessGame.TeamColor.BLACK, "black");
+        Assertions.assertThrows(TeamColorTakenException.class,
+                () -> cache.updateGame(2, ChessGame.TeamColor.BLACK, "late"));
+
+        Assertions.assertEquals("white", cache.getGame(2).whiteUsername());
+        Assertions.assertEquals("black", stored.database.get(2).blackUsername());
+    }
+}
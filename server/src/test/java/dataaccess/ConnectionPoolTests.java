@@ -0,0 +1,144 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConnectionPoolTests {
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+
+    @BeforeEach
+    public void reset() {
+        opened.clear();
+    }
+
+    @Test
+    public void returnedConnectionIsReused() throws SQLException {
+        ConnectionPool pool = pool(2, 100);
+        try (Connection ignored = pool.borrow()) {
+            Assertions.assertEquals(1, opened.size());
+        }
+        try (Connection conn = pool.borrow()) {
+            Assertions.assertFalse(conn.isClosed());
+        }
+        Assertions.assertEquals(1, opened.size(), "A returned connection should be borrowed again");
+        Assertions.assertFalse(opened.getFirst().closed, "Returning a connection should not close it");
+    }
+
+    @Test
+    public void borrowTimesOutWhenFull() throws SQLException {
+        ConnectionPool pool = pool(1, 50);
+        try (Connection ignored = pool.borrow()) {
+            Assertions.assertThrows(SQLException.class, pool::borrow);
+        }
+        try (Connection conn = pool.borrow()) {
+            Assertions.assertNotNull(conn);
+        }
+    }
+
+    @Test
+    public void invalidIdleConnectionIsReplaced() throws SQLException, InterruptedException {
+        ConnectionPool pool = pool(2, 100);
+        pool.borrow().close();
+        opened.getFirst().valid = false;
+        Thread.sleep(ConnectionPool.VALIDATION_GRACE_MILLIS + 100);
+
+        pool.borrow().close();
+        Assertions.assertEquals(2, opened.size());
+        Assertions.assertTrue(opened.getFirst().closed, "The broken connection should be closed");
+    }
+
+    @Test
+    public void returnedConnectionIsReset() throws SQLException {
+        ConnectionPool pool = pool(2, 100);
+        Connection conn = pool.borrow();
+        conn.setAutoCommit(false);
+        conn.close();
+
+        Assertions.assertTrue(opened.getFirst().rolledBack, "An open transaction should be rolled back");
+        Assertions.assertTrue(opened.getFirst().autoCommit);
+        Assertions.assertTrue(conn.isClosed());
+        Assertions.assertThrows(SQLException.class, () -> conn.prepareStatement("SELECT 1"));
+        conn.close();
+        Assertions.assertEquals(1, pool.size(), "Closing twice should not return the connection twice");
+    }
+
+    @Test
+    public void statementsArePreparedOncePerConnection() throws SQLException {
+        ConnectionPool pool = pool(1, 100, 8);
+        try (Connection conn = pool.borrow()) {
+            conn.prepareStatement("SELECT 1").close();
+            try (PreparedStatement ps = conn.prepareStatement("SELECT 1")) {
+                Assertions.assertFalse(ps.isClosed());
+                try (PreparedStatement nested = conn.prepareStatement("SELECT 1")) {
+                    Assertions.assertNotSame(ps, nested);
+                }
+            }
+        }
+        try (Connection conn = pool.borrow()) {
+            PreparedStatement ps = conn.prepareStatement("SELECT 1");
+            ps.close();
+            Assertions.assertTrue(ps.isClosed());
+            Assertions.assertThrows(SQLException.class, ps::executeQuery);
+        }
+        Assertions.assertEquals(2, opened.getFirst().prepared,
+                "Only the statement prepared while the cached one was in use should be prepared again");
+    }
+
+    private ConnectionPool pool(int maxSize, long acquireTimeoutMillis) {
+        return pool(maxSize, acquireTimeoutMillis, 0);
+    }
+
+    private ConnectionPool pool(int maxSize, long acquireTimeoutMillis, int statementCacheSize) {
+        return new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.proxy();
+        }, new ConnectionPool.Settings(0, maxSize, 60000, acquireTimeoutMillis, 1, 0, statementCacheSize));
+    }
+
+    private static final class FakeConnection {
+        private boolean valid = true;
+        private boolean autoCommit = true;
+        private boolean rolledBack;
+        private boolean closed;
+        private int prepared;
+
+        private Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "isValid" -> valid;
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rolledBack = true;
+                            yield null;
+                        }
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "prepareStatement" -> {
+                            prepared++;
+                            yield Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                    new Class<?>[] {PreparedStatement.class},
+                                    (statement, statementMethod, statementArgs) ->
+                                            statementMethod.getName().equals("isClosed") ? false : null);
+                        }
+                        default -> null;
+                    });
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.GameOverException;
+import chess.PackedGame;
+import chess.WrongTurnException;
+import com.google.gson.Gson;
 import exceptions.DuplicateEntryException;
 import exceptions.EntryNotFoundException;
+import exceptions.TeamColorTakenException;
 import exceptions.UnauthorizedException;
 import model.AuthData;
 import model.GameData;
@@ -17,9 +25,23 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class DataAccessTests {
 
+    private static final ChessMove KNIGHT_OUT = move(1, 7, 3, 6);
+    private static final ChessMove[] OPENING = {
+            KNIGHT_OUT, move(8, 7, 6, 6), move(2, 5, 4, 5), move(7, 5, 5, 5), move(2, 4, 4, 4), move(7, 4, 6, 4)};
+    private static final int RACERS = 8;
+
     private static AuthDAO authDAO;
     private static GameDAO gameDAO;
     private static UserDAO userDAO;
@@ -40,6 +62,12 @@ public class DataAccessTests {
             try (PreparedStatement ps = conn.prepareStatement("TRUNCATE TABLE game")) {
                 ps.executeUpdate();
             }
+            try (PreparedStatement ps = conn.prepareStatement("TRUNCATE TABLE game_move")) {
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("TRUNCATE TABLE game_snapshot")) {
+                ps.executeUpdate();
+            }
             try (PreparedStatement ps = conn.prepareStatement("TRUNCATE TABLE user")) {
                 ps.executeUpdate();
             }
@@ -266,7 +294,7 @@ public class DataAccessTests {
     @Test
     public void updateGameSuccess() {
         Assertions.assertDoesNotThrow(() -> {
-            GameData oldData = new GameData(1, "white",
+            GameData oldData = new GameData(1, null,
                     "black", "game", new ChessGame());
             GameData newData = new GameData(1, "me",
                     "black", "game", new ChessGame());
@@ -281,4 +309,288 @@ public class DataAccessTests {
         Assertions.assertThrows(EntryNotFoundException.class,
                 () -> gameDAO.updateGame(1, ChessGame.TeamColor.BLACK, "me"));
     }
+
+    @Test
+    public void updateTakenSeat() {
+        Assertions.assertDoesNotThrow(() -> gameDAO.createGame(new GameData(1, "white", null, "game",
+                new ChessGame())));
+        Assertions.assertThrows(TeamColorTakenException.class,
+                () -> gameDAO.updateGame(1, ChessGame.TeamColor.WHITE, "me"));
+        Assertions.assertDoesNotThrow(() -> Assertions.assertEquals("white", gameDAO.getGame(1).whiteUsername()));
+    }
+
+    @Test
+    public void racingMovesHaveOneWinner() throws Exception {
+        for (GameDAO dao : new GameDAO[] {
+                gameDAO, new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.BINARY, true, 4)}) {
+            dao.clear();
+            dao.createGame(new GameData(1, "white", "black", "game", new ChessGame()));
+            List<Throwable> failures = race(racer -> dao.makeMove(1, "white", KNIGHT_OUT));
+
+            Assertions.assertEquals(1, failures.stream().filter(failure -> failure == null).count(),
+                    "Exactly one of the racing moves should be made");
+            for (Throwable failure : failures) {
+                if (failure != null) {
+                    Assertions.assertInstanceOf(WrongTurnException.class, failure);
+                }
+            }
+            ChessGame game = dao.getGame(1).game();
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+            Assertions.assertEquals(ChessPiece.PieceType.KNIGHT,
+                    game.getBoard().getPiece(KNIGHT_OUT.getEndPosition()).getPieceType());
+        }
+    }
+
+    @Test
+    public void moveAndResignationInEitherOrder() throws Exception {
+        for (GameDAO dao : new GameDAO[] {
+                gameDAO, new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.BINARY, true, 4)}) {
+            dao.createGame(new GameData(1, "white", "black", "game", new ChessGame()));
+            dao.makeMove(1, "white", KNIGHT_OUT);
+            dao.setGameOver(1);
+            ChessGame game = dao.getGame(1).game();
+            Assertions.assertTrue(game.isOver());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn(),
+                    "A move made before the resignation should be kept");
+
+            dao.createGame(new GameData(2, "white", "black", "game", new ChessGame()));
+            dao.setGameOver(2);
+            Assertions.assertThrows(GameOverException.class, () -> dao.makeMove(2, "white", KNIGHT_OUT));
+            game = dao.getGame(2).game();
+            Assertions.assertTrue(game.isOver());
+            Assertions.assertEquals(new ChessGame().getBoard(), game.getBoard(),
+                    "A move rejected after the resignation should not be saved");
+            dao.clear();
+        }
+    }
+
+    @Test
+    public void replayWhileSnapshotsChange() throws Exception {
+        DatabaseGameDAO logged = new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.BINARY, true, 0);
+        logged.createGame(new GameData(1, "white", "black", "game", new ChessGame()));
+        play(logged, 1, OPENING.length);
+        byte[][] snapshots = new byte[OPENING.length + 1][];
+        for (int ply = 1; ply <= OPENING.length; ply++) {
+            snapshots[ply] = PackedGame.pack(played(ply));
+        }
+
+        ChessGame expected = played(OPENING.length);
+        List<Throwable> failures = race(racer -> {
+            for (int round = 0; round < 200; round++) {
+                if (racer == 0) {
+                    int ply = 1 + round % OPENING.length;
+                    writeSnapshot(1, ply, snapshots[ply]);
+                }
+                else {
+                    ChessGame game = racer % 2 == 0 ? logged.getGame(1).game() : logged.listGames()[0].game();
+                    Assertions.assertEquals(expected, game, "A snapshot saved mid-read should not drop moves");
+                }
+            }
+        });
+        Assertions.assertEquals(Collections.nCopies(RACERS, null), failures);
+    }
+
+    @Test
+    public void racingJoinsHaveOneWinner() throws Exception {
+        gameDAO.createGame(new GameData(1, null, null, "game", new ChessGame()));
+        List<Throwable> failures = race(racer -> gameDAO.updateGame(1, ChessGame.TeamColor.WHITE, "player" + racer));
+
+        int winner = failures.indexOf(null);
+        Assertions.assertTrue(winner >= 0, "One of the racing joins should succeed");
+        for (int racer = 0; racer < RACERS; racer++) {
+            if (racer != winner) {
+                Assertions.assertInstanceOf(TeamColorTakenException.class, failures.get(racer));
+            }
+        }
+        GameData game = gameDAO.getGame(1);
+        Assertions.assertEquals("player" + winner, game.whiteUsername());
+        Assertions.assertNull(game.blackUsername());
+    }
+
+    @Test
+    public void resignedLoggedGameReloads() throws Exception {
+        DatabaseGameDAO logged = new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.BINARY, true, 0);
+        logged.createGame(new GameData(1, "white", "black", "game", new ChessGame()));
+        play(logged, 1, 3);
+        logged.setGameOver(1);
+
+        ChessGame reloaded = new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.FEN, true, 0).getGame(1).game();
+        Assertions.assertEquals(played(3), reloaded);
+        Assertions.assertTrue(reloaded.isOver());
+        Assertions.assertEquals(ChessGame.GameStatus.RESIGNED, reloaded.getStatus());
+        Assertions.assertArrayEquals(Arrays.copyOf(OPENING, 3), logged.getMoves(1),
+                "The resignation should not be listed as a move");
+        Assertions.assertThrows(GameOverException.class, () -> logged.makeMove(1, "black", OPENING[3]));
+    }
+
+    @Test
+    public void listLoggedGames() throws Exception {
+        DatabaseGameDAO logged = new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.BINARY, true, 4);
+        for (int gameID = 1; gameID <= 3; gameID++) {
+            logged.createGame(new GameData(gameID, "white", "black", "game", new ChessGame()));
+            play(logged, gameID, 2 * gameID);
+        }
+
+        GameData[] games = logged.listGames();
+        Assertions.assertEquals(3, games.length);
+        for (GameData game : games) {
+            Assertions.assertEquals(played(2 * game.gameID()), game.game());
+            Assertions.assertEquals(logged.getGame(game.gameID()), game);
+        }
+    }
+
+    @Test
+    public void readMixedFormats() throws Exception {
+        DatabaseGameDAO.StorageFormat[] formats = DatabaseGameDAO.StorageFormat.values();
+        for (int i = 0; i < formats.length; i++) {
+            DatabaseGameDAO writer = new DatabaseGameDAO(formats[i]);
+            writer.createGame(new GameData(i + 1, "white", "black", formats[i].name(), new ChessGame()));
+            play(writer, i + 1, i + 1);
+        }
+
+        for (DatabaseGameDAO.StorageFormat format : formats) {
+            DatabaseGameDAO reader = new DatabaseGameDAO(format);
+            GameData[] games = reader.listGames();
+            Assertions.assertEquals(formats.length, games.length);
+            for (int i = 0; i < formats.length; i++) {
+                Assertions.assertEquals(played(i + 1), games[i].game(),
+                        "Reading a " + formats[i] + " row as " + format);
+                Assertions.assertEquals(games[i], reader.getGame(i + 1));
+            }
+        }
+
+        new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.BINARY).makeMove(1, "black", OPENING[1]);
+        Assertions.assertEquals(played(2), new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.JSON).getGame(1).game(),
+                "A JSON row should keep playing after being rewritten packed");
+    }
+
+    @Test
+    public void readLegacyJsonRow() throws Exception {
+        String legacy = "{\"turn\":\"WHITE\",\"board\":{\"pieces\":"
+                + new Gson().toJson(new ChessGame().getBoard().getPieces()) + "},\"over\":false}";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO game (gameID, whiteUsername, blackUsername, gameName, game) VALUES (1, ?, ?, ?, ?)")) {
+                ps.setString(1, "white");
+                ps.setString(2, "black");
+                ps.setString(3, "game");
+                ps.setString(4, legacy);
+                ps.executeUpdate();
+            }
+        }
+
+        Assertions.assertEquals(new ChessGame(), gameDAO.getGame(1).game(),
+                "A board stored as a grid of pieces should not load empty");
+        play(gameDAO, 1, 2);
+        Assertions.assertEquals(played(2), gameDAO.getGame(1).game());
+    }
+
+    @Test
+    public void replayAcrossSnapshot() throws Exception {
+        new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.JSON).createGame(
+                new GameData(1, "white", "black", "game", new ChessGame()));
+        DatabaseGameDAO logged = new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.BINARY, true, 4);
+        play(logged, 1, 4);
+        Assertions.assertEquals(4, snapshotPly(1));
+        Assertions.assertEquals(played(4), logged.getGame(1).game(), "Nothing is logged after the snapshot yet");
+
+        logged.makeMove(1, "white", OPENING[4]);
+        logged.makeMove(1, "black", OPENING[5]);
+        Assertions.assertEquals(4, snapshotPly(1));
+        Assertions.assertEquals(played(6), logged.getGame(1).game());
+        Assertions.assertEquals(played(6),
+                new DatabaseGameDAO(DatabaseGameDAO.StorageFormat.FEN, true, 0).getGame(1).game(),
+                "A DAO that never snapshots should still start from the latest snapshot");
+        Assertions.assertArrayEquals(OPENING, logged.getMoves(1), "Snapshots should not shorten the move log");
+    }
+
+    /**
+     * @return The ply of a game's latest snapshot, or 0 if it has none.
+     */
+    private static int snapshotPly(int gameID) throws DataAccessException, SQLException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT ply FROM game_snapshot WHERE gameID=?")) {
+                ps.setInt(1, gameID);
+                ResultSet rs = ps.executeQuery();
+                return rs.next() ? rs.getInt("ply") : 0;
+            }
+        }
+    }
+
+    /**
+     * Saves a snapshot the way the DAO does, replacing the game's current one.
+     */
+    private static void writeSnapshot(int gameID, int ply, byte[] game) throws DataAccessException, SQLException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    INSERT INTO game_snapshot (gameID, ply, game) VALUES (?, ?, ?)
+                    ON DUPLICATE KEY UPDATE ply=VALUES(ply), game=VALUES(game)
+                    """)) {
+                ps.setInt(1, gameID);
+                ps.setInt(2, ply);
+                ps.setBytes(3, game);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Plays the first plies of {@link #OPENING} in a stored game.
+     */
+    private static void play(GameDAO dao, int gameID, int plies) throws Exception {
+        for (int ply = 0; ply < plies; ply++) {
+            dao.makeMove(gameID, ply % 2 == 0 ? "white" : "black", OPENING[ply]);
+        }
+    }
+
+    /**
+     * @return A new game with the first plies of {@link #OPENING} played.
+     */
+    private static ChessGame played(int plies) throws Exception {
+        ChessGame game = new ChessGame();
+        for (int ply = 0; ply < plies; ply++) {
+            game.makeMove(OPENING[ply]);
+        }
+        return game;
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(ChessPosition.getPosition(fromRow, fromCol), ChessPosition.getPosition(toRow, toCol),
+                null);
+    }
+
+    @FunctionalInterface
+    private interface Racer {
+        void run(int racer) throws Exception;
+    }
+
+    /**
+     * Starts {@link #RACERS} threads at once, each running the task with its own number.
+     * @return What each racer threw, by number, or null for racers that returned normally.
+     */
+    private static List<Throwable> race(Racer task) throws InterruptedException {
+        ExecutorService threads = Executors.newFixedThreadPool(RACERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int racer = 0; racer < RACERS; racer++) {
+            int number = racer;
+            results.add(threads.submit(() -> {
+                start.await();
+                task.run(number);
+                return null;
+            }));
+        }
+        start.countDown();
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> result : results) {
+            try {
+                result.get();
+                failures.add(null);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        threads.shutdown();
+        return failures;
+    }
 }
@@ -0,0 +1,251 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
+import websocket.messages.NotificationMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+public class ConnectionManagerTests {
+
+    @Test
+    public void broadcastSendsTheSameTextToEveryoneButTheExcludedUser() {
+        ConnectionManager manager = new ConnectionManager(8, Connection.Overflow.DROP_OLDEST);
+        StubSession white = new StubSession(true);
+        StubSession black = new StubSession(true);
+        StubSession observer = new StubSession(true);
+        manager.add(1, "white", white.session);
+        manager.add(1, "black", black.session);
+        manager.add(1, "observer", observer.session);
+
+        manager.broadcast(1, new NotificationMessage("white moved"), "white");
+
+        Assertions.assertTrue(white.sent.isEmpty(), "The excluded user should not be sent the message");
+        Assertions.assertEquals(1, black.sent.size());
+        Assertions.assertEquals(black.sent, observer.sent);
+        Assertions.assertTrue(black.sent.getFirst().contains("white moved"));
+    }
+
+    @Test
+    public void aSessionIsRegisteredWithOneGameAtATime() {
+        ConnectionManager manager = new ConnectionManager(8, Connection.Overflow.DROP_OLDEST);
+        StubSession session = new StubSession(true);
+        manager.add(1, "observer", session.session);
+        Connection first = manager.get(session.session);
+        manager.add(1, "observer", session.session);
+        Assertions.assertSame(first, manager.get(session.session), "Registering again should keep the connection");
+
+        manager.add(2, "observer", session.session);
+        Assertions.assertNull(manager.connections.get(1), "Moving to another game should leave the first");
+        Assertions.assertEquals(2, manager.get(session.session).gameID());
+
+        manager.broadcast(1, new NotificationMessage("game 1"));
+        manager.broadcast(2, new NotificationMessage("game 2"));
+        Assertions.assertEquals(List.of("game 2"), session.messages());
+
+        manager.remove(session.session);
+        Assertions.assertNull(manager.get(session.session));
+        Assertions.assertTrue(manager.connections.isEmpty());
+    }
+
+    @Test
+    public void removingOneSessionKeepsTheUsersOtherSessions() {
+        ConnectionManager manager = new ConnectionManager(8, Connection.Overflow.DROP_OLDEST);
+        StubSession laptop = new StubSession(true);
+        StubSession phone = new StubSession(true);
+        manager.add(1, "observer", laptop.session);
+        manager.add(1, "observer", phone.session);
+
+        manager.remove(laptop.session);
+        manager.broadcast(1, new NotificationMessage("moved"));
+
+        Assertions.assertTrue(laptop.sent.isEmpty());
+        Assertions.assertEquals(List.of("moved"), phone.messages());
+    }
+
+    @Test
+    public void aSlowConnectionDoesNotHoldUpTheOthers() {
+        ConnectionManager manager = new ConnectionManager(2, Connection.Overflow.DROP_OLDEST);
+        StubSession player = new StubSession(true);
+        StubSession slow = new StubSession(false);
+        manager.add(1, "player", player.session);
+        manager.add(1, "slow", slow.session);
+
+        for (int i = 0; i < 10; i++) {
+            manager.broadcast(1, new NotificationMessage("move " + i));
+        }
+
+        Assertions.assertEquals(10, player.sent.size());
+        Assertions.assertEquals(1, slow.sent.size(), "Only one write should be in flight at a time");
+        slow.completeAll();
+        Assertions.assertEquals(List.of("move 0", "move 8", "move 9"), slow.messages(),
+                "The oldest queued notifications should be dropped");
+    }
+
+    @Test
+    public void coalescingKeepsNotificationsAndTheNewestBoard() {
+        ConnectionManager manager = new ConnectionManager(3, Connection.Overflow.COALESCE);
+        StubSession slow = new StubSession(false);
+        manager.add(1, "slow", slow.session);
+
+        manager.broadcast(1, new NotificationMessage("in flight"));
+        manager.broadcast(1, new LoadGameMessage("board 1"));
+        manager.broadcast(1, new NotificationMessage("moved 1"));
+        manager.broadcast(1, new LoadGameMessage("board 2"));
+        manager.broadcast(1, new NotificationMessage("moved 2"));
+        slow.completeAll();
+
+        Assertions.assertEquals(List.of("in flight", "moved 1", "board 2", "moved 2"), slow.messages());
+    }
+
+    @Test
+    public void coalescingReplacesAWaitingBoardBeforeTheQueueFills() {
+        ConnectionManager manager = new ConnectionManager(64, Connection.Overflow.COALESCE);
+        StubSession slow = new StubSession(false);
+        manager.add(1, "slow", slow.session);
+
+        manager.broadcast(1, new NotificationMessage("in flight"));
+        for (int i = 1; i <= 5; i++) {
+            manager.broadcast(1, new LoadGameMessage("board " + i));
+            manager.broadcast(1, new NotificationMessage("moved " + i));
+        }
+        slow.completeAll();
+
+        Assertions.assertEquals(List.of("in flight", "moved 1", "moved 2", "moved 3", "moved 4", "board 5", "moved 5"),
+                slow.messages());
+    }
+
+    @Test
+    public void aNewBoardReplacesMovesWaitingBeforeIt() {
+        ConnectionManager manager = new ConnectionManager(64, Connection.Overflow.COALESCE);
+        StubSession slow = new StubSession(false);
+        manager.add(1, "slow", slow.session);
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(ChessPosition.getPosition(2, 5), ChessPosition.getPosition(4, 5), null);
+
+        manager.broadcast(1, new NotificationMessage("in flight"));
+        manager.broadcast(1, MoveMessage.after(move, game));
+        manager.broadcast(1, new NotificationMessage("moved"));
+        manager.broadcast(1, new LoadGameMessage("board"));
+        slow.completeAll();
+
+        Assertions.assertEquals(List.of("in flight", "moved", "board"), slow.messages());
+    }
+
+    @Test
+    public void disconnectClosesAConnectionThatFallsBehind() {
+        ConnectionManager manager = new ConnectionManager(1, Connection.Overflow.DISCONNECT);
+        StubSession slow = new StubSession(false);
+        manager.add(1, "slow", slow.session);
+
+        manager.broadcast(1, new NotificationMessage("in flight"));
+        manager.broadcast(1, new NotificationMessage("queued"));
+        Assertions.assertFalse(slow.closed);
+        manager.broadcast(1, new NotificationMessage("too many"));
+
+        Assertions.assertTrue(slow.closed);
+        manager.broadcast(1, new NotificationMessage("after closing"));
+        Assertions.assertEquals(1, slow.sent.size());
+        Assertions.assertNull(manager.connections.get(1), "A closed connection should be dropped on the next broadcast");
+    }
+
+    @Test
+    public void aFailedWriteClosesTheConnection() {
+        ConnectionManager manager = new ConnectionManager(8, Connection.Overflow.COALESCE);
+        StubSession broken = new StubSession(false);
+        manager.add(1, "broken", broken.session);
+
+        manager.broadcast(1, new NotificationMessage("lost"));
+        manager.broadcast(1, new NotificationMessage("queued"));
+        broken.failAll();
+
+        Assertions.assertTrue(broken.closed);
+        Assertions.assertEquals(StatusCode.SERVER_ERROR, broken.closeCode);
+        manager.broadcast(1, new NotificationMessage("after closing"));
+        Assertions.assertEquals(List.of("lost"), broken.messages(), "Nothing should be sent after a failed write");
+        Assertions.assertNull(manager.connections.get(1));
+    }
+
+    /**
+     * A session that records the text sent to it. Writes complete at once, or wait for {@link #completeAll()}.
+     */
+    static final class StubSession {
+        final List<String> sent = new ArrayList<>();
+        final Session session;
+        private final Queue<WriteCallback> pending = new ArrayDeque<>();
+        private boolean closed;
+        private int closeCode;
+
+        StubSession(boolean completeWrites) {
+            RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {RemoteEndpoint.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("sendString")) {
+                            sent.add((String) args[0]);
+                            WriteCallback callback = (WriteCallback) args[1];
+                            if (completeWrites) {
+                                callback.writeSuccess();
+                            }
+                            else {
+                                pending.add(callback);
+                            }
+                        }
+                        return stubResult(proxy, method.getName(), args);
+                    });
+            session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "isOpen" -> !closed;
+                        case "getRemote" -> remote;
+                        case "close" -> {
+                            closed = true;
+                            if (args != null && args.length == 2) {
+                                closeCode = (int) args[0];
+                            }
+                            yield null;
+                        }
+                        default -> stubResult(proxy, method.getName(), args);
+                    });
+        }
+
+        void completeAll() {
+            while (!pending.isEmpty()) {
+                pending.remove().writeSuccess();
+            }
+        }
+
+        void failAll() {
+            while (!pending.isEmpty()) {
+                pending.remove().writeFailed(new IOException("Broken pipe"));
+            }
+        }
+
+        /**
+         * @return The notification text or game string of each message sent.
+         */
+        List<String> messages() {
+            return sent.stream().map(json -> json.replaceAll(".*\"(?:message|game)\":\"([^\"]*)\".*", "$1")).toList();
+        }
+    }
+
+    private static Object stubResult(Object proxy, String method, Object[] args) {
+        return switch (method) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "StubSession@" + Integer.toHexString(System.identityHashCode(proxy));
+            default -> null;
+        };
+    }
+}
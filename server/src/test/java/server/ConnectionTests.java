@@ -0,0 +1,91 @@
+package server;
+
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.eclipse.jetty.websocket.api.extensions.OutgoingFrames;
+import org.eclipse.jetty.websocket.common.LogicalConnection;
+import org.eclipse.jetty.websocket.common.WebSocketRemoteEndpoint;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import websocket.messages.NotificationMessage;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Sends through Jetty's own {@link WebSocketRemoteEndpoint}, the path real sessions take, with the frames it would
+ * write to the network captured instead.
+ */
+public class ConnectionTests {
+
+    @Test
+    public void framesGoOutInOrderWithWholePayloads() {
+        CapturedFrames first = new CapturedFrames();
+        CapturedFrames second = new CapturedFrames();
+        Connection toFirst = new Connection(1, "first", first.session(), 256, Connection.Overflow.COALESCE);
+        Connection toSecond = new Connection(1, "second", second.session(), 256, Connection.Overflow.COALESCE);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            EncodedMessage msg = EncodedMessage.encode(new NotificationMessage("Knight \u265e moved " + i));
+            expected.add(msg.json());
+            toFirst.send(msg);
+            toSecond.send(msg);
+            if (i % 3 == 0) {
+                first.completeAll();
+            }
+        }
+        first.completeAll();
+        second.completeAll();
+
+        Assertions.assertEquals(expected, first.texts);
+        Assertions.assertEquals(expected, second.texts,
+                "Sending a message to one connection should not use up its payload for the next");
+    }
+
+    /**
+     * The frames a WebSocketRemoteEndpoint hands to the network, read as they arrive. Writes complete when
+     * {@link #completeAll()} is called.
+     */
+    private static final class CapturedFrames implements OutgoingFrames {
+        private final List<String> texts = new ArrayList<>();
+        private final Queue<WriteCallback> pending = new ArrayDeque<>();
+
+        @Override
+        public void outgoingFrame(Frame frame, WriteCallback callback, BatchMode mode) {
+            Assertions.assertEquals(Frame.Type.TEXT, frame.getType());
+            Assertions.assertTrue(frame.isFin(), "Each message should be sent as one whole frame");
+            // Reading the payload moves its position, as writing it to the network would.
+            texts.add(StandardCharsets.UTF_8.decode(frame.getPayload()).toString());
+            pending.add(callback);
+        }
+
+        void completeAll() {
+            while (!pending.isEmpty()) {
+                pending.remove().writeSuccess();
+            }
+        }
+
+        Session session() {
+            LogicalConnection connection = (LogicalConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {LogicalConnection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "canWriteWebSocketFrames", "isOpen", "opened" -> true;
+                        default -> method.getReturnType() == boolean.class ? false : null;
+                    });
+            RemoteEndpoint remote = new WebSocketRemoteEndpoint(connection, this);
+            return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Session.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getRemote" -> remote;
+                        case "isOpen" -> true;
+                        default -> null;
+                    });
+        }
+    }
+}
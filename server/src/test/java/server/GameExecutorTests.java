@@ -0,0 +1,117 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameExecutorTests {
+
+    @Test
+    public void tasksForOneGameRunInOrderOneAtATime() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        GameExecutor executor = new GameExecutor(workers);
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int task = i;
+            executor.execute(1, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                ran.add(task);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, overlaps.get(), "Two tasks for one game ran at once");
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertEquals(i, ran.get(i), "Tasks for one game ran out of order");
+        }
+        workers.shutdown();
+    }
+
+    @Test
+    public void differentGamesRunInParallel() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        GameExecutor executor = new GameExecutor(workers);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+
+        for (int game = 1; game <= 2; game++) {
+            executor.execute(game, () -> {
+                bothStarted.countDown();
+                try {
+                    if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS), "A busy game blocked another game");
+        workers.shutdown();
+    }
+
+    @Test
+    public void aTaskThrowingAnErrorDoesNotStopItsGame() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(1, task -> {
+            Thread thread = new Thread(task);
+            thread.setUncaughtExceptionHandler((t, e) -> { });
+            return thread;
+        });
+        GameExecutor executor = new GameExecutor(workers);
+        CountDownLatch queued = new CountDownLatch(1);
+        CountDownLatch submittedLater = new CountDownLatch(1);
+
+        executor.execute(1, () -> {
+            throw new AssertionError("Expected by the test");
+        });
+        executor.execute(1, queued::countDown);
+        Assertions.assertTrue(queued.await(5, TimeUnit.SECONDS), "The task queued behind the error did not run");
+
+        executor.execute(1, submittedLater::countDown);
+        Assertions.assertTrue(submittedLater.await(5, TimeUnit.SECONDS), "The game stopped taking tasks");
+        workers.shutdown();
+    }
+
+    @Test
+    public void shutdownFinishesWaitingTasks() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(1);
+        GameExecutor executor = new GameExecutor(workers);
+        CountDownLatch blocked = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+
+        executor.execute(1, () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            executor.execute(1, ran::incrementAndGet);
+        }
+        executor.shutdown();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(2, ran::incrementAndGet));
+        blocked.countDown();
+
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(100, ran.get(), "Tasks waiting at shutdown were dropped");
+    }
+}
@@ -0,0 +1,165 @@
+package chess;
+
+/**
+ * Square numbering, lookup tables and bit helpers shared by the bitboard-backed board and move generation.
+ * <p>
+ * Squares are numbered 0 - 63 starting at a1 (row 1, column 1) and increasing along each row, so bit {@code n}
+ * of a bitboard represents square {@code n}.
+ */
+final class Bitboards {
+
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_8 = RANK_1 << 56;
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    /**
+     * Squares attacked by a pawn of the given color (indexed by {@link ChessGame.TeamColor#ordinal()}) standing on
+     * the given square.
+     */
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    /**
+     * Squares strictly between two squares that share a row, column or diagonal, or 0 if they are not aligned.
+     */
+    static final long[][] BETWEEN = new long[64][64];
+    /**
+     * The full row, column or diagonal through two aligned squares, or 0 if they are not aligned.
+     */
+    static final long[][] LINE = new long[64][64];
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            long bit = 1L << square;
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, new int[][] {
+                    {1, 2}, {-1, 2}, {1, -2}, {-1, -2}, {2, 1}, {-2, 1}, {2, -1}, {-2, -1}});
+            KING_ATTACKS[square] = leaperAttacks(square, new int[][] {
+                    {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = ((bit & ~FILE_A) << 7) | ((bit & ~FILE_H) << 9);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = ((bit & ~FILE_A) >>> 9) | ((bit & ~FILE_H) >>> 7);
+            fillLines(square);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * Builds the attack set of a piece that jumps by fixed offsets.
+     * @param square The square the piece stands on.
+     * @param offsets Row and column offsets of each jump.
+     * @return Bitboard of every in-bounds destination.
+     */
+    private static long leaperAttacks(int square, int[][] offsets) {
+        long attacks = 0;
+        int row = row(square);
+        int col = column(square);
+        for (int[] offset : offsets) {
+            int newRow = row + offset[0];
+            int newCol = col + offset[1];
+            if (newRow >= 0 && newRow < 8 && newCol >= 0 && newCol < 8) {
+                attacks |= 1L << (newRow * 8 + newCol);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Fills {@link #BETWEEN} and {@link #LINE} for every square aligned with the given one.
+     * @param square The square to walk outward from.
+     */
+    private static void fillLines(int square) {
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+        for (int[] direction : directions) {
+            long line = (1L << square) | ray(square, direction[0], direction[1])
+                    | ray(square, -direction[0], -direction[1]);
+            for (int sign = -1; sign <= 1; sign += 2) {
+                long between = 0;
+                int row = row(square) + sign * direction[0];
+                int col = column(square) + sign * direction[1];
+                while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                    int target = row * 8 + col;
+                    BETWEEN[square][target] = between;
+                    LINE[square][target] = line;
+                    between |= 1L << target;
+                    row += sign * direction[0];
+                    col += sign * direction[1];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Every square from the given one (exclusive) to the edge of the board in one direction.
+     */
+    private static long ray(int square, int rowStep, int colStep) {
+        long ray = 0;
+        int row = row(square) + rowStep;
+        int col = column(square) + colStep;
+        while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            ray |= 1L << (row * 8 + col);
+            row += rowStep;
+            col += colStep;
+        }
+        return ray;
+    }
+
+    /**
+     * @return The square index of a 1-indexed row and column.
+     */
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return The zero-indexed row of a square.
+     */
+    static int row(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * @return The zero-indexed column of a square.
+     */
+    static int column(int square) {
+        return square & 7;
+    }
+
+    /**
+     * @return The cached ChessPosition for a square index.
+     */
+    static ChessPosition position(int square) {
+        return ChessPosition.getPosition(row(square) + 1, column(square) + 1);
+    }
+
+    /**
+     * @return Whether the 1-indexed row and column are on the board.
+     */
+    static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    /**
+     * Returns the bitboard index used for a piece of the given color and type.
+     * White pieces use indices 0 - 5 and black pieces 6 - 11, in {@link ChessPiece.PieceType} order.
+     */
+    static int index(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    static ChessGame.TeamColor colorOf(int index) {
+        return COLORS[index / 6];
+    }
+
+    static ChessPiece.PieceType typeOf(int index) {
+        return TYPES[index % 6];
+    }
+}
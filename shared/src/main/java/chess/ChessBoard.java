@@ -1,19 +1,68 @@
 package chess;
 
-import java.util.Objects;
+import java.util.Arrays;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Pieces are stored as twelve bitboards, one per color and piece type, alongside the side to move, castling rights
+ * and en passant square. Copying, comparing and querying the board are therefore a handful of word operations.
+ * <p>
+ * A Zobrist key of the piece placement is updated with every piece that is placed or removed, so {@link #hashCode()}
+ * is free, {@link #equals(Object)} rejects different boards with one comparison, and {@link #zobristKey()} gives a
+ * 64-bit key of the whole position for caches and repetition checks.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
 
-    private final ChessPiece[][] pieces;
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+
+    /**
+     * Castling rights kept when a piece moves from or to each square.
+     */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    /**
+     * Shared, immutable-by-convention piece instances returned by {@link #getPiece(ChessPosition)}.
+     */
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[Bitboards.square(1, 5)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(1, 8)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(1, 1)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(8, 5)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(8, 8)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(8, 1)] &= ~BLACK_QUEENSIDE;
+
+        for (int i = 0; i < PIECES.length; i++) {
+            PIECES[i] = new ChessPiece(Bitboards.colorOf(i), Bitboards.typeOf(i));
+        }
+    }
+
+    private final long[] bitboards;
+    private ChessGame.TeamColor teamTurn;
+    private int castlingRights;
+    private int enPassantSquare;
+    /**
+     * Zobrist key of the piece placement alone. Not serialized; a deserialized board has {@code keyValid} false and
+     * recomputes it on first use.
+     */
+    private transient long pieceKey;
+    private transient boolean keyValid;
 
     public ChessBoard() {
-        pieces = new ChessPiece[8][8];
+        bitboards = new long[12];
+        teamTurn = ChessGame.TeamColor.WHITE;
+        castlingRights = ALL_CASTLING;
+        enPassantSquare = -1;
     }
 
     public static ChessBoard defaultBoard() {
@@ -24,40 +73,245 @@ public class ChessBoard {
 
     public ChessBoard copyOf() {
         ChessBoard chessBoard = new ChessBoard();
-        for (int i = 0; i < 8; i++) {
-            System.arraycopy(pieces[i], 0, chessBoard.pieces[i], 0, 8);
-        }
+        chessBoard.copyBoard(this);
         return chessBoard;
     }
 
     public void copyBoard(ChessBoard copy) {
-        for (int i = 0; i < 8; i++) {
-            System.arraycopy(copy.pieces[i], 0, pieces[i], 0, 8);
-        }
+        System.arraycopy(copy.bitboards, 0, bitboards, 0, bitboards.length);
+        teamTurn = copy.teamTurn;
+        castlingRights = copy.castlingRights;
+        enPassantSquare = copy.enPassantSquare;
+        pieceKey = copy.pieceKey;
+        keyValid = copy.keyValid;
     }
 
 
     public void doMove(ChessMove move) {
-        ChessPiece pieceToMove = getPiece(move.getStartPosition());
-        if (move.getPromotionPiece() != null) {
-            pieceToMove.setPieceType(move.getPromotionPiece());
-        }
-        pieceToMove.setMoved();
-        removePiece(move.getStartPosition());
-        addPiece(move.getEndPosition(), pieceToMove);
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        doMove(from, to, move.getPromotionPiece(), flagsFor(from, to));
+    }
 
+    /**
+     * Performs a packed move produced by the move generator, trusting its flags for castling, en passant and double
+     * pushes instead of working them out again.
+     * @param move The packed move.
+     */
+    void doMove(int move) {
+        doMove(PackedMove.from(move), PackedMove.to(move), PackedMove.promotion(move), move);
     }
 
+    private void doMove(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int moving = movePiece(from, to, promotion, flags);
+
+        teamTurn = Bitboards.colorOf(moving).opposite();
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = PackedMove.hasFlag(flags, PackedMove.DOUBLE_PUSH) ? (from + to) / 2 : -1;
+    }
+
+    /**
+     * Moves a piece without updating castling or en passant state, for trying out a move.
+     * @param move The move to simulate.
+     */
     public void simMove(ChessMove move) {
-        ChessPiece pieceToMove = getPiece(move.getStartPosition()).movedCopy();
-        removePiece(move.getStartPosition());
-        addPiece(move.getEndPosition(), pieceToMove);
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        movePiece(from, to, move.getPromotionPiece(), flagsFor(from, to));
+    }
+
+    /**
+     * Works out the packed move flags of a move given only by its squares, from the piece on the start square: a king
+     * moving two squares castles, and a pawn moves diagonally onto the en passant square or two squares forward.
+     * @return The {@link PackedMove} flags the move generator would have given the move.
+     */
+    private int flagsFor(int from, int to) {
+        int moving = indexAt(from);
+        if (moving < 0) {
+            return 0;
+        }
+        ChessPiece.PieceType type = Bitboards.typeOf(moving);
+        if (type == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            return PackedMove.CASTLE;
+        }
+        if (type == ChessPiece.PieceType.PAWN) {
+            if (Math.abs(to - from) == 16) {
+                return PackedMove.DOUBLE_PUSH;
+            }
+            if (to == enPassantSquare && (to & 7) != (from & 7)) {
+                return PackedMove.EN_PASSANT;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Moves the piece on one square to another, capturing anything on the destination. Castling also moves the rook,
+     * and capturing en passant also removes the pawn that skipped over the destination.
+     * @param from The square being moved from.
+     * @param to The square being moved to.
+     * @param promotion The type the piece becomes, or null to keep its type.
+     * @param flags The move's {@link PackedMove} flags.
+     * @return The bitboard index of the piece that moved.
+     */
+    private int movePiece(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int moving = indexAt(from);
+        if (PackedMove.hasFlag(flags, PackedMove.CASTLE)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            int rook = indexAt(rookFrom);
+            if (rook >= 0) {
+                toggle(rook, rookFrom);
+                toggle(rook, rookTo);
+            }
+        }
+        else if (PackedMove.hasFlag(flags, PackedMove.EN_PASSANT)) {
+            clearSquare((from & ~7) | (to & 7));
+        }
+        clearSquare(to);
+        toggle(moving, from);
+        toggle(promotion == null ? moving : Bitboards.index(Bitboards.colorOf(moving), promotion), to);
+        return moving;
     }
 
     public void removePiece(ChessPosition position) {
-        pieces[position.getRow()-1][position.getColumn()-1] = null;
+        clearSquare(Bitboards.square(position));
+    }
+
+    private void clearSquare(int square) {
+        int index = indexAt(square);
+        if (index >= 0) {
+            toggle(index, square);
+        }
+    }
+
+    /**
+     * Puts a piece on an empty square without allocating a ChessPiece, for decoding stored boards.
+     * @param index The bitboard index of the piece.
+     * @param square The empty square to put it on.
+     */
+    void placePiece(int index, int square) {
+        toggle(index, square);
+    }
+
+    /**
+     * Adds or removes one piece, keeping the placement key in step.
+     * @param index The bitboard index of the piece.
+     * @param square The square it is added to or removed from.
+     */
+    private void toggle(int index, int square) {
+        bitboards[index] ^= 1L << square;
+        pieceKey ^= Zobrist.PIECE_SQUARE[index][square];
+    }
+
+    /**
+     * @return The bitboard index of the piece on a square, or -1 if the square is empty.
+     */
+    int indexAt(int square) {
+        long bit = 1L << square;
+        for (int i = 0; i < bitboards.length; i++) {
+            if ((bitboards[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The bitboard of every piece of the given color and type.
+     */
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards[Bitboards.index(color, type)];
+    }
+
+    /**
+     * @return The bitboard of every square occupied by the given color.
+     */
+    long occupancy(ChessGame.TeamColor color) {
+        int base = color.ordinal() * 6;
+        return bitboards[base] | bitboards[base + 1] | bitboards[base + 2]
+                | bitboards[base + 3] | bitboards[base + 4] | bitboards[base + 5];
     }
 
+    /**
+     * @return The bitboard of every occupied square.
+     */
+    long occupancy() {
+        return occupancy(ChessGame.TeamColor.WHITE) | occupancy(ChessGame.TeamColor.BLACK);
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    public void setTeamTurn(ChessGame.TeamColor teamTurn) {
+        this.teamTurn = teamTurn;
+    }
+
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights;
+    }
+
+    /**
+     * @return The square a pawn skipped over with a double move on the last turn, or -1 if there is none.
+     */
+    int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    void setEnPassantSquare(int enPassantSquare) {
+        this.enPassantSquare = enPassantSquare;
+    }
+
+    /**
+     * @return The Zobrist key of the piece placement, computing it first if the board was just deserialized.
+     */
+    private long pieceKey() {
+        if (!keyValid) {
+            pieceKey = 0;
+            for (int i = 0; i < bitboards.length; i++) {
+                for (long bits = bitboards[i]; bits != 0; bits &= bits - 1) {
+                    pieceKey ^= Zobrist.PIECE_SQUARE[i][Long.numberOfTrailingZeros(bits)];
+                }
+            }
+            keyValid = true;
+        }
+        return pieceKey;
+    }
+
+    /**
+     * Returns the Zobrist key of the whole position: piece placement, side to move, castling rights and en passant.
+     * The en passant file only counts when a pawn of the side to move could capture there, so positions that
+     * differ only by an unusable en passant square share a key.
+     * @return A 64-bit key that is equal for equal positions and almost never equal for different ones.
+     */
+    public long zobristKey() {
+        return zobristKey(teamTurn);
+    }
+
+    /**
+     * @return The Zobrist key of this position as if the given team were to move.
+     */
+    long zobristKey(ChessGame.TeamColor sideToMove) {
+        long key = pieceKey() ^ Zobrist.CASTLING[castlingRights];
+        if (sideToMove == ChessGame.TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        if (enPassantSquare >= 0 && (Bitboards.PAWN_ATTACKS[sideToMove.opposite().ordinal()][enPassantSquare]
+                & pieces(sideToMove, ChessPiece.PieceType.PAWN)) != 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
+        return key;
+    }
+
+    /**
+     * Boards are equal when their pieces are placed the same, whatever the side to move or castling rights.
+     * Differing placement keys settle almost every unequal comparison without looking at the bitboards.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -67,12 +321,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(pieces, that.pieces);
+        return pieceKey() == that.pieceKey() && Arrays.equals(bitboards, that.bitboards);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(pieces);
+        return Long.hashCode(pieceKey());
     }
 
     @Override
@@ -97,8 +351,15 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        //pieces.put(position, piece);
-        pieces[position.getRow()-1][position.getColumn()-1] = piece;
+        int square = Bitboards.square(position);
+        clearSquare(square);
+        if (piece == null) {
+            return;
+        }
+        toggle(Bitboards.index(piece.getTeamColor(), piece.getPieceType()), square);
+        if (piece.hasMoved()) {
+            castlingRights &= CASTLING_MASK[square];
+        }
     }
 
     /**
@@ -106,10 +367,11 @@ public class ChessBoard {
      *
      * @param position The position to get the piece from
      * @return Either the piece at the position, or null if no piece is at that
-     * position
+     * position. The returned piece is shared between boards and should not be modified.
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return pieces[position.getRow()-1][position.getColumn()-1];
+        int index = indexAt(Bitboards.square(position));
+        return index < 0 ? null : PIECES[index];
     }
 
     /**
@@ -118,15 +380,13 @@ public class ChessBoard {
      * @param color The color of the pieces.
      */
     private void placeSpecialPieces(int row, ChessGame.TeamColor color) {
-        pieces[row][0] = new ChessPiece(color, ChessPiece.PieceType.ROOK);
-        pieces[row][1] = new ChessPiece(color, ChessPiece.PieceType.KNIGHT);
-        pieces[row][2] = new ChessPiece(color, ChessPiece.PieceType.BISHOP);
-        pieces[row][3] = new ChessPiece(color, ChessPiece.PieceType.QUEEN);
-        pieces[row][4] = new ChessPiece(color, ChessPiece.PieceType.KING);
-        pieces[row][5] = new ChessPiece(color, ChessPiece.PieceType.BISHOP);
-        pieces[row][6] = new ChessPiece(color, ChessPiece.PieceType.KNIGHT);
-        pieces[row][7] = new ChessPiece(color, ChessPiece.PieceType.ROOK);
-
+        ChessPiece.PieceType[] order = {
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK};
+        for (int i = 0; i < 8; i++) {
+            bitboards[Bitboards.index(color, order[i])] |= 1L << (row * 8 + i);
+        }
     }
 
     /**
@@ -135,9 +395,7 @@ public class ChessBoard {
      * @param color The color of the pawns.
      */
     private void placePawns(int row, ChessGame.TeamColor color) {
-        for (int i = 0; i < 8; i++) {
-            pieces[row][i] = new ChessPiece(color, ChessPiece.PieceType.PAWN);
-        }
+        bitboards[Bitboards.index(color, ChessPiece.PieceType.PAWN)] |= Bitboards.RANK_1 << (row * 8);
     }
 
     /**
@@ -145,6 +403,11 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
+        Arrays.fill(bitboards, 0);
+        keyValid = false;
+        teamTurn = ChessGame.TeamColor.WHITE;
+        castlingRights = ALL_CASTLING;
+        enPassantSquare = -1;
         placeSpecialPieces(0, ChessGame.TeamColor.WHITE);
         placeSpecialPieces(7, ChessGame.TeamColor.BLACK);
         placePawns(1, ChessGame.TeamColor.WHITE);
@@ -158,11 +421,7 @@ public class ChessBoard {
      * @return Whether the given position is occupied by an enemy piece.
      */
     public boolean positionBlockedByEnemy(ChessPosition pos, ChessGame.TeamColor color) {
-        ChessPiece piece = getPiece(pos);
-        if (piece == null) {
-            return false;
-        }
-        return piece.getTeamColor() != color;
+        return (occupancy(color.opposite()) & (1L << Bitboards.square(pos))) != 0;
     }
 
     /**
@@ -172,36 +431,48 @@ public class ChessBoard {
      * @return Whether the given position is empty or occupied by an enemy piece
      */
     public boolean canMoveOrCapture(ChessPosition pos, ChessGame.TeamColor color) {
-        return pos.inBounds() && (getPiece(pos) == null || positionBlockedByEnemy(pos, color));
+        return pos.inBounds() && (occupancy(color) & (1L << Bitboards.square(pos))) == 0;
     }
 
     public boolean isInCheck(ChessGame.TeamColor team) {
-        ChessPosition kingPos = null;
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                ChessPiece piece = pieces[i][j];
-                if (piece != null && piece.getTeamColor() == team && piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    kingPos = ChessPosition.getPosition(i+1, j+1);
-                    break;
-                }
-            }
-        }
+        int king = kingSquare(team);
+        return king >= 0 && attackersTo(king, team.opposite(), occupancy()) != 0;
+    }
 
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (isSpaceAttackingKing(i, j, team, kingPos)) {
-                    return true;
-                }
-            }
-        }
+    /**
+     * Finds a king from its bitboard, which doMove and simMove keep up to date.
+     * @param team The king's color.
+     * @return The square of the given team's king, or -1 if it has none.
+     */
+    int kingSquare(ChessGame.TeamColor team) {
+        long king = pieces(team, ChessPiece.PieceType.KING);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
 
-        return false;
+    /**
+     * Finds the pieces attacking a square by looking outward from it with each piece's attack pattern.
+     * @param square The square being attacked.
+     * @param attacker The color of the attacking pieces.
+     * @param occupied The squares that block sliding pieces.
+     * @return The bitboard of every piece of the attacking color that attacks the square.
+     */
+    long attackersTo(int square, ChessGame.TeamColor attacker, long occupied) {
+        long rooksQueens = pieces(attacker, ChessPiece.PieceType.ROOK) | pieces(attacker, ChessPiece.PieceType.QUEEN);
+        long bishopsQueens = pieces(attacker, ChessPiece.PieceType.BISHOP)
+                | pieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (Bitboards.PAWN_ATTACKS[attacker.opposite().ordinal()][square]
+                    & pieces(attacker, ChessPiece.PieceType.PAWN))
+                | (Bitboards.KNIGHT_ATTACKS[square] & pieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (Bitboards.KING_ATTACKS[square] & pieces(attacker, ChessPiece.PieceType.KING))
+                | (SliderAttacks.rookAttacks(square, occupied) & rooksQueens)
+                | (SliderAttacks.bishopAttacks(square, occupied) & bishopsQueens);
     }
 
     public boolean isSpaceAttackingKing(int row, int col, ChessGame.TeamColor team, ChessPosition kingPos) {
-        ChessPiece attacker = pieces[row][col];
+        ChessPosition position = ChessPosition.getPosition(row+1, col+1);
+        ChessPiece attacker = getPiece(position);
         if (attacker != null && attacker.getTeamColor() != team) {
-            for (ChessMove move : attacker.pieceMoves(this, ChessPosition.getPosition(row+1,col+1))) {
+            for (ChessMove move : attacker.pieceMoves(this, position)) {
                 if (move.getEndPosition().equals(kingPos)) {
                     return true;
                 }
@@ -210,7 +481,19 @@ public class ChessBoard {
         return false;
     }
 
+    /**
+     * Builds a snapshot of the board as a grid of pieces, indexed by [row - 1][column - 1].
+     * Changes to the returned array do not affect the board.
+     * @return A new 8x8 array of the pieces on the board.
+     */
     public ChessPiece[][] getPieces() {
+        ChessPiece[][] pieces = new ChessPiece[8][8];
+        for (int i = 0; i < bitboards.length; i++) {
+            for (long bits = bitboards[i]; bits != 0; bits &= bits - 1) {
+                int square = Long.numberOfTrailingZeros(bits);
+                pieces[Bitboards.row(square)][Bitboards.column(square)] = PIECES[i];
+            }
+        }
         return pieces;
     }
 }
@@ -10,9 +10,24 @@ import java.util.*;
  */
 public class ChessGame {
 
+    /**
+     * The halfmove clock at which the seventy-five-move rule ends the game.
+     */
+    private static final int SEVENTY_FIVE_MOVE_CLOCK = 150;
+
     private TeamColor turn;
     private ChessBoard board;
     private boolean over = false;
+    /**
+     * The status of the team to move, or null until it is next read after the position or turn changes. It is
+     * computed by every move, since a move can end the game, and serialized once known.
+     */
+    private GameStatus status;
+    /**
+     * Moves since the last capture or pawn move, and the number of the current full move, as written in FEN.
+     */
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
 
     public ChessGame() {
         turn = TeamColor.WHITE;
@@ -22,15 +37,36 @@ public class ChessGame {
     public ChessGame(TeamColor turn, ChessBoard board) {
         this.turn = turn;
         this.board = board;
+        board.setTeamTurn(turn);
     }
 
     /**
-     * Update the elements of this game to match a given new game.
+     * Restores a saved game, such as one read from FEN. The side to move is taken from the board.
+     */
+    ChessGame(ChessBoard board, int halfmoveClock, int fullmoveNumber, boolean over) {
+        this(board.getTeamTurn(), board);
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        if (over) {
+            this.over = true;
+            updateStatus();
+            if (!status.isGameOver()) {
+                status = GameStatus.RESIGNED;
+            }
+        }
+    }
+
+    /**
+     * Update the elements of this game to match a given new game, including whether it is over.
      * @param newGame The game whose elements this game will copy.
      */
     public void updateGame(ChessGame newGame) {
         this.turn = newGame.turn;
         this.board = newGame.board;
+        this.over = newGame.over;
+        this.status = newGame.status;
+        this.halfmoveClock = newGame.halfmoveClock;
+        this.fullmoveNumber = newGame.fullmoveNumber;
     }
 
     /**
@@ -47,12 +83,39 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.turn = team;
+        board.setTeamTurn(team);
+        if (!over) {
+            status = null;
+        }
     }
 
     public Collection<ChessPosition> validEndPositions(ChessPosition startPosition) {
         return validMoves(startPosition).stream().map(ChessMove::getEndPosition).toList();
     }
 
+    /**
+     * The state of a game from the point of view of the team to move.
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        /**
+         * The team to move has no legal moves but is not in check, so the game is drawn.
+         */
+        STALEMATE,
+        /**
+         * Seventy-five moves by each team have passed without a capture or pawn move, so the game is drawn. Under
+         * FIDE rules this ends the game without either player claiming a draw, unlike the fifty-move rule.
+         */
+        SEVENTY_FIVE_MOVE,
+        RESIGNED;
+
+        public boolean isGameOver() {
+            return this == CHECKMATE || this == STALEMATE || this == SEVENTY_FIVE_MOVE || this == RESIGNED;
+        }
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -82,16 +145,12 @@ public class ChessGame {
         if (toMove == null) {
             return null;
         }
-        TeamColor color = toMove.getTeamColor();
-        Collection<ChessMove> allMoves = toMove.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new HashSet<>();
-        ChessBoard simBoard = board.copyOf();
-        for (ChessMove move : allMoves) {
-            simBoard.simMove(move);
-            if (!simBoard.isInCheck(color)) {
-                validMoves.add(move);
+        int from = Bitboards.square(startPosition);
+        Collection<ChessMove> validMoves = new ArrayList<>();
+        for (int move : LegalMoveCache.legalMoves(board, toMove.getTeamColor()).moves()) {
+            if (PackedMove.from(move) == from) {
+                validMoves.add(PackedMove.toChessMove(move));
             }
-            simBoard.copyBoard(board);
         }
         return validMoves;
     }
@@ -107,10 +166,17 @@ public class ChessGame {
         if (over) {
             throw new GameOverException();
         }
-        Collection<ChessMove> moves = validMoves(move.getStartPosition());
-        if (moves != null && moves.contains(move)) {
-            if (board.getPiece(move.getStartPosition()).getTeamColor() == turn) {
-                board.doMove(move);
+        ChessPiece toMove = board.getPiece(move.getStartPosition());
+        int packed = toMove == null ? -1 : findLegalMove(toMove.getTeamColor(), move);
+        if (packed >= 0) {
+            if (toMove.getTeamColor() == turn) {
+                board.doMove(packed);
+                boolean resetsClock = toMove.getPieceType() == ChessPiece.PieceType.PAWN
+                        || PackedMove.hasFlag(packed, PackedMove.CAPTURE);
+                halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+                if (turn == TeamColor.BLACK) {
+                    fullmoveNumber++;
+                }
             }
             else {
                 throw new WrongTurnException();
@@ -119,15 +185,44 @@ public class ChessGame {
         else {
             throw new InvalidMoveException("You cannot move there.");
         }
-        if (turn == TeamColor.WHITE) {
-            turn = TeamColor.BLACK;
+        turn = turn.opposite();
+        board.setTeamTurn(turn);
+        updateStatus();
+        if (status.isGameOver()) {
+            over = true;
+        }
+    }
+
+    /**
+     * Recomputes the status of the team to move from the cached legal moves of the current position and the halfmove
+     * clock. Checkmate on the hundred and fiftieth halfmove still wins.
+     */
+    private void updateStatus() {
+        LegalMoveCache.LegalMoves legalMoves = LegalMoveCache.legalMoves(board, turn);
+        if (legalMoves.noValidMoves()) {
+            status = legalMoves.inCheck() ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        else if (halfmoveClock >= SEVENTY_FIVE_MOVE_CLOCK) {
+            status = GameStatus.SEVENTY_FIVE_MOVE;
         }
         else {
-            turn = TeamColor.WHITE;
+            status = legalMoves.inCheck() ? GameStatus.CHECK : GameStatus.ONGOING;
         }
-        if (isInStalemate(turn) || isInCheckmate(turn)) {
-            over = true;
+    }
+
+    /**
+     * Finds the legal packed move matching a ChessMove without building ChessMove objects for the alternatives.
+     * @param color The color of the piece being moved.
+     * @param move The move being looked for.
+     * @return The packed move, or -1 if the move is not legal.
+     */
+    private int findLegalMove(TeamColor color, ChessMove move) {
+        for (int legal : LegalMoveCache.legalMoves(board, color).moves()) {
+            if (PackedMove.matches(legal, move)) {
+                return legal;
+            }
         }
+        return -1;
     }
 
     /**
@@ -147,23 +242,8 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
-        }
-        return noValidMoves(teamColor);
-    }
-
-    private boolean noValidMoves(TeamColor teamColor) {
-        ChessPiece[][] pieces = board.getPieces();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (pieces[i][j] != null &&pieces[i][j].getTeamColor() == teamColor
-                        && !validMoves(ChessPosition.getPosition(i+1,j+1)).isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        LegalMoveCache.LegalMoves legalMoves = LegalMoveCache.legalMoves(board, teamColor);
+        return legalMoves.inCheck() && legalMoves.noValidMoves();
     }
 
     /**
@@ -174,19 +254,22 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        return noValidMoves(teamColor);
+        LegalMoveCache.LegalMoves legalMoves = LegalMoveCache.legalMoves(board, teamColor);
+        return !legalMoves.inCheck() && legalMoves.noValidMoves();
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Sets this game's chessboard with a given board. The new position starts a game that is not over, even if this
+     * game had ended, and its status is recomputed for the team to move when next read. Use {@link #updateGame} to
+     * copy a whole game, including whether it has ended.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.over = false;
+        board.setTeamTurn(turn);
+        this.status = null;
     }
 
     /**
@@ -202,11 +285,38 @@ public class ChessGame {
         return over;
     }
 
+    /**
+     * @return The status of the team to move as of the last move, or {@link GameStatus#RESIGNED} once the game
+     * has been ended by a player.
+     */
+    public GameStatus getStatus() {
+        if (status == null) {
+            updateStatus();
+        }
+        return status;
+    }
+
+    /**
+     * @return How many half-moves have been played, counted from the full move number and the side to move.
+     */
+    public int getPly() {
+        return 2 * (fullmoveNumber - 1) + (turn == TeamColor.BLACK ? 1 : 0);
+    }
+
+    int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
     public void setGameOver() throws GameOverException {
         if (over) {
             throw new GameOverException();
         }
         over = true;
+        status = GameStatus.RESIGNED;
     }
 
     @Override
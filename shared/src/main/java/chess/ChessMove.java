@@ -68,4 +68,27 @@ public class ChessMove {
     public ChessPiece.PieceType getPromotionPiece() {
         return promotionPiece;
     }
+
+    /**
+     * Packs this move into 15 bits: the start square in bits 0 - 5, the end square in bits 6 - 11 (each numbered
+     * (row - 1) * 8 + (column - 1)) and the promotion piece's ordinal plus one, or 0, in bits 12 - 14. This is the
+     * move generator's packed move without its flags.
+     *
+     * @return The encoded move, which fits in a SMALLINT column.
+     */
+    public int encode() {
+        return PackedMove.of(Bitboards.square(startPosition), Bitboards.square(endPosition), promotionPiece, 0);
+    }
+
+    /**
+     * @param code A move encoded by {@link #encode()}.
+     * @return The move.
+     * @throws IllegalArgumentException if the code is not an encoded move.
+     */
+    public static ChessMove decode(int code) {
+        if (code < 0 || code >>> 12 > ChessPiece.PieceType.values().length) {
+            throw new IllegalArgumentException("Invalid move code " + code);
+        }
+        return PackedMove.toChessMove(code);
+    }
 }
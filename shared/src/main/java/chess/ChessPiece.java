@@ -33,6 +33,13 @@ public class ChessPiece {
         this.moved = true;
     }
 
+    /**
+     * @return Whether this piece has moved, which forfeits castling when placed on a board
+     */
+    public boolean hasMoved() {
+        return moved;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -91,15 +98,8 @@ public class ChessPiece {
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
         return switch (type) {
             case KING -> kingMoves(board, myPosition);
-            case QUEEN -> {
-                Collection<ChessMove> moves = new HashSet<>();
-                moves.addAll(bishopMoves(board, myPosition));
-                moves.addAll(rookMoves(board, myPosition));
-                yield moves;
-            }
-            case BISHOP -> bishopMoves(board, myPosition);
+            case QUEEN, BISHOP, ROOK -> sliderMoves(board, myPosition);
             case KNIGHT -> knightMoves(board, myPosition);
-            case ROOK -> rookMoves(board, myPosition);
             case PAWN -> pawnMoves(board, myPosition);
         };
     }
@@ -112,207 +112,53 @@ public class ChessPiece {
      */
     private Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition myPosition) {
         Collection<ChessMove> moves = new HashSet<>();
-        ChessPosition newPosition = myPosition.translate(1, 0);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(1, 1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(0, 1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(-1, 1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(-1, 0);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(-1, -1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(0, -1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(1, -1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
+        addMoves(myPosition, Bitboards.KING_ATTACKS[Bitboards.square(myPosition)] & ~board.occupancy(pieceColor), moves);
         return moves;
     }
 
     /**
-     * Returns a collection containing a bishop's potential moves
-     * @param board The board being moved on
-     * @param myPosition The bishop's original position
-     * @return A new collection containing the bishop's potential moves
+     * Add a move from a position to every square in a bitboard of destinations.
+     * @param myPosition The position being moved from
+     * @param targets The destination squares
+     * @param moves The move set being added to
      */
-    private Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPosition) {
-        boolean continueNE = true;
-        boolean continueSE = true;
-        boolean continueNW = true;
-        boolean continueSW = true;
-
-        Collection<ChessMove> moves = new HashSet<>();
-
-        ChessPosition newPosition;
-        for (int spaces = 1; spaces < 8 && (continueNE || continueSE || continueNW || continueSW); spaces++) {
-            if (continueNE) {
-                newPosition = myPosition.translate(spaces, spaces);
-                if (board.canMoveOrCapture(newPosition, pieceColor)) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                    if (board.getPiece(newPosition) != null) {
-                        continueNE = false;
-                    }
-                }
-                else {
-                    continueNE = false;
-                }
-            }
-            if (continueSE) {
-                newPosition = myPosition.translate(-spaces, spaces);
-                if (board.canMoveOrCapture(newPosition, pieceColor)) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                    if (board.getPiece(newPosition) != null) {
-                        continueSE = false;
-                    }
-                }
-                else {
-                    continueSE = false;
-                }
-            }
-            if (continueNW) {
-                newPosition = myPosition.translate(spaces, -spaces);
-                if (board.canMoveOrCapture(newPosition, pieceColor)) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                    if (board.getPiece(newPosition) != null) {
-                        continueNW = false;
-                    }
-                }
-                else {
-                    continueNW = false;
-                }
-            }
-            if (continueSW) {
-                newPosition = myPosition.translate(-spaces, -spaces);
-                if (board.canMoveOrCapture(newPosition, pieceColor)) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                    if (board.getPiece(newPosition) != null) {
-                        continueSW = false;
-                    }
-                }
-                else {
-                    continueSW = false;
-                }
-            }
+    private void addMoves(ChessPosition myPosition, long targets, Collection<ChessMove> moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(new ChessMove(myPosition, Bitboards.position(Long.numberOfTrailingZeros(targets)), null));
         }
-        return moves;
     }
 
     /**
-     * Returns a collection containing a knight's potential moves
+     * Returns a collection containing a bishop's, rook's or queen's potential moves
      * @param board The board being moved on
-     * @param myPosition The knight's original position
-     * @return A new collection containing a knight's potential moves
+     * @param myPosition The piece's original position
+     * @return A new collection containing the piece's potential moves
      */
-    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPosition) {
+    private Collection<ChessMove> sliderMoves(ChessBoard board, ChessPosition myPosition) {
+        int square = Bitboards.square(myPosition);
+        long occupied = board.occupancy();
+        long attacks = switch (type) {
+            case BISHOP -> SliderAttacks.bishopAttacks(square, occupied);
+            case ROOK -> SliderAttacks.rookAttacks(square, occupied);
+            default -> SliderAttacks.queenAttacks(square, occupied);
+        };
         Collection<ChessMove> moves = new HashSet<>();
-        ChessPosition newPosition = myPosition.translate(1, 2);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(-1, 2);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(1, -2);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(-1, -2);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(2, 1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(-2, 1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(2, -1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
-        newPosition = myPosition.translate(-2, -1);
-        if (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-        }
+        addMoves(myPosition, attacks & ~board.occupancy(pieceColor), moves);
         return moves;
     }
 
     /**
-     * Returns a collection of a rook's possible moves
+     * Returns a collection containing a knight's potential moves
      * @param board The board being moved on
-     * @param myPosition The rook's starting position
-     * @return A new collection of the rook's potential moves
+     * @param myPosition The knight's original position
+     * @return A new collection containing a knight's potential moves
      */
-    private Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition myPosition) {
+    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPosition) {
         Collection<ChessMove> moves = new HashSet<>();
-        addRookMovesUpDown(board, myPosition, true, moves);
-        addRookMovesUpDown(board, myPosition, false, moves);
-        addRookMovesLeftRight(board, myPosition, true, moves);
-        addRookMovesLeftRight(board, myPosition, false, moves);
+        addMoves(myPosition, Bitboards.KNIGHT_ATTACKS[Bitboards.square(myPosition)] & ~board.occupancy(pieceColor), moves);
         return moves;
     }
 
-    /**
-     * Add vertical moves to a rook's potential move set
-     * @param board The board being moved on
-     * @param myPosition The rook's starting position
-     * @param up Whether the rook is moving up or down
-     * @param moves The move set being added to
-     */
-    private void addRookMovesUpDown(ChessBoard board, ChessPosition myPosition, boolean up, Collection<ChessMove> moves) {
-        int spaces = 1;
-        ChessPosition newPosition = myPosition.translate(up ? spaces : -spaces, 0);
-        while (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-            if (board.getPiece(newPosition) != null) {
-                break;
-            }
-            spaces++;
-            newPosition = myPosition.translate(up ? spaces : -spaces, 0);
-        }
-    }
-
-    /**
-     * Add horizontal moves to a rook's potential move set
-     * @param board The board being moved on
-     * @param myPosition The rook's starting position
-     * @param left Whether the rook is moving left or right
-     * @param moves The move set being added to
-     */
-    private void addRookMovesLeftRight(ChessBoard board, ChessPosition myPosition, boolean left, Collection<ChessMove> moves) {
-        int spaces = 1;
-        ChessPosition newPosition = myPosition.translate(0, left ? -spaces : spaces);
-        while (board.canMoveOrCapture(newPosition, pieceColor)) {
-            moves.add(new ChessMove(myPosition, newPosition, null));
-            if (board.getPiece(newPosition) != null) {
-                break;
-            }
-            spaces++;
-            newPosition = myPosition.translate(0, left ? -spaces : spaces);
-        }
-    }
-
     /**
      * Add pawn moves to a collection of moves, including all possible promotions.
      * @param oldPos The position being moved from.
@@ -0,0 +1,183 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * Games are written as the six standard FEN fields, followed by a seventh field, {@value #GAME_OVER}, when the game
+ * has ended. A game is a single line of about 60 - 90 characters, so it is also a compact way to store one.
+ */
+public final class Fen {
+
+    private static final String PIECE_CHARACTERS = "kqbnrp";
+    private static final String GAME_OVER = "over";
+
+    private Fen() {
+    }
+
+    /**
+     * Writes a game as FEN, with the game over field if it has ended.
+     * @param game The game to write.
+     * @return The FEN string.
+     */
+    public static String toFen(ChessGame game) {
+        StringBuilder fen = new StringBuilder(96);
+        ChessBoard board = game.getBoard();
+        appendBoard(fen, board);
+        fen.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+        if (game.isOver()) {
+            fen.append(' ').append(GAME_OVER);
+        }
+        return fen.toString();
+    }
+
+    /**
+     * Writes the placement, side to move, castling and en passant fields of a board.
+     */
+    private static void appendBoard(StringBuilder fen, ChessBoard board) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                int index = board.indexAt(Bitboards.square(row, col));
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = PIECE_CHARACTERS.charAt(Bitboards.typeOf(index).ordinal());
+                fen.append(Bitboards.colorOf(index) == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(board.getTeamTurn() == ChessGame.TeamColor.BLACK ? " b " : " w ");
+        int rights = board.getCastlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        }
+        else {
+            if ((rights & ChessBoard.WHITE_KINGSIDE) != 0) {
+                fen.append('K');
+            }
+            if ((rights & ChessBoard.WHITE_QUEENSIDE) != 0) {
+                fen.append('Q');
+            }
+            if ((rights & ChessBoard.BLACK_KINGSIDE) != 0) {
+                fen.append('k');
+            }
+            if ((rights & ChessBoard.BLACK_QUEENSIDE) != 0) {
+                fen.append('q');
+            }
+        }
+        fen.append(' ');
+        int enPassant = board.getEnPassantSquare();
+        if (enPassant < 0) {
+            fen.append('-');
+        }
+        else {
+            fen.append((char) ('a' + Bitboards.column(enPassant))).append(Bitboards.row(enPassant) + 1);
+        }
+    }
+
+    /**
+     * Builds a game from FEN written by {@link #toFen(ChessGame)} or any other FEN source.
+     * Missing move counters default to 0 and 1.
+     * @param fen The FEN string.
+     * @return A new game holding the position, counters and game over state.
+     * @throws IllegalArgumentException if the string is not valid FEN.
+     */
+    public static ChessGame parseGame(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessBoard board = parseBoard(fen);
+        try {
+            int halfmoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            int fullmoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+            boolean over = fields.length > 6 && fields[6].equals(GAME_OVER);
+            return new ChessGame(board, halfmoveClock, fullmoveNumber, over);
+        }
+        catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid FEN move counters: " + fen);
+        }
+    }
+
+    /**
+     * Builds a board from the placement, side to move, castling and en passant fields of a FEN string.
+     * Missing trailing fields default to white to move with no castling and no en passant square.
+     * @param fen The FEN string.
+     * @return A new board holding the position.
+     * @throws IllegalArgumentException if the string is not valid FEN.
+     */
+    public static ChessBoard parseBoard(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessBoard board = new ChessBoard();
+
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("FEN placement must have 8 rows: " + fen);
+        }
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : rows[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                int type = PIECE_CHARACTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 8) {
+                    throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE
+                        : ChessGame.TeamColor.BLACK;
+                board.addPiece(ChessPosition.getPosition(row, col),
+                        new ChessPiece(color, ChessPiece.PieceType.values()[type]));
+                col++;
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("FEN row does not cover 8 squares: " + rows[i]);
+            }
+        }
+
+        board.setTeamTurn(fields.length > 1 && fields[1].equals("b") ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE);
+        board.setCastlingRights(fields.length > 2 ? parseCastling(fields[2]) : 0);
+        board.setEnPassantSquare(fields.length > 3 ? parseSquare(fields[3]) : -1);
+        return board;
+    }
+
+    private static int parseCastling(String field) {
+        int rights = 0;
+        for (char c : field.toCharArray()) {
+            rights |= switch (c) {
+                case 'K' -> ChessBoard.WHITE_KINGSIDE;
+                case 'Q' -> ChessBoard.WHITE_QUEENSIDE;
+                case 'k' -> ChessBoard.BLACK_KINGSIDE;
+                case 'q' -> ChessBoard.BLACK_QUEENSIDE;
+                case '-' -> 0;
+                default -> throw new IllegalArgumentException("Invalid FEN castling rights: " + field);
+            };
+        }
+        return rights;
+    }
+
+    /**
+     * @return The square index of a square written like "e3", or -1 for "-".
+     */
+    private static int parseSquare(String field) {
+        if (field.equals("-")) {
+            return -1;
+        }
+        if (field.length() != 2 || field.charAt(0) < 'a' || field.charAt(0) > 'h'
+                || field.charAt(1) < '1' || field.charAt(1) > '8') {
+            throw new IllegalArgumentException("Invalid FEN square: " + field);
+        }
+        return Bitboards.square(field.charAt(1) - '0', field.charAt(0) - 'a' + 1);
+    }
+}
@@ -0,0 +1,81 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Reads games stored as Gson JSON.
+ * <p>
+ * Games saved before boards were kept as bitboards hold the board as a {@code pieces} grid, indexed
+ * {@code [row - 1][column - 1]}, with no move counters, castling or en passant fields. Those are rebuilt from the grid:
+ * castling is kept for a king and rook still unmoved on their starting squares, and the counters start at 0 and 1.
+ */
+public final class GameJson {
+
+    private static final Gson GSON = new Gson();
+
+    private GameJson() {
+    }
+
+    /**
+     * The shape of a game saved with a {@code pieces} grid.
+     */
+    private record LegacyGame(ChessGame.TeamColor turn, LegacyBoard board, boolean over) {
+    }
+
+    private record LegacyBoard(ChessPiece[][] pieces) {
+    }
+
+    /**
+     * Builds a game from JSON written by Gson, in either the current or the {@code pieces} grid format.
+     * @param json The JSON string.
+     * @return A new game holding the position and game over state.
+     */
+    public static ChessGame parseGame(String json) {
+        JsonObject game = JsonParser.parseString(json).getAsJsonObject();
+        JsonObject board = game.getAsJsonObject("board");
+        if (board == null || !board.has("pieces")) {
+            return GSON.fromJson(game, ChessGame.class);
+        }
+
+        LegacyGame legacy = GSON.fromJson(game, LegacyGame.class);
+        ChessGame.TeamColor turn = legacy.turn() == null ? ChessGame.TeamColor.WHITE : legacy.turn();
+        ChessBoard restored = new ChessBoard();
+        restored.setTeamTurn(turn);
+        ChessPiece[][] pieces = legacy.board().pieces();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = pieces[row - 1][col - 1];
+                if (piece != null) {
+                    restored.addPiece(new ChessPosition(row, col), piece);
+                }
+            }
+        }
+        restored.setCastlingRights(castlingRights(pieces));
+        return new ChessGame(restored, 0, 1, legacy.over());
+    }
+
+    private static int castlingRights(ChessPiece[][] pieces) {
+        int rights = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int row = color == ChessGame.TeamColor.WHITE ? 1 : 8;
+            if (!unmoved(pieces, row, 5, color, ChessPiece.PieceType.KING)) {
+                continue;
+            }
+            if (unmoved(pieces, row, 8, color, ChessPiece.PieceType.ROOK)) {
+                rights |= color == ChessGame.TeamColor.WHITE ? ChessBoard.WHITE_KINGSIDE : ChessBoard.BLACK_KINGSIDE;
+            }
+            if (unmoved(pieces, row, 1, color, ChessPiece.PieceType.ROOK)) {
+                rights |= color == ChessGame.TeamColor.WHITE ? ChessBoard.WHITE_QUEENSIDE : ChessBoard.BLACK_QUEENSIDE;
+            }
+        }
+        return rights;
+    }
+
+    private static boolean unmoved(ChessPiece[][] pieces, int row, int col,
+                                   ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ChessPiece piece = pieces[row - 1][col - 1];
+        return piece != null && !piece.hasMoved() && piece.getTeamColor() == color && piece.getPieceType() == type;
+    }
+}
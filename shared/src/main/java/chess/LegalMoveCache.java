@@ -0,0 +1,62 @@
+package chess;
+
+/**
+ * A bounded cache of every legal move and the check status for recently seen positions, shared by all games.
+ * <p>
+ * Positions are keyed by their Zobrist key with the moving team as the side to move, and each key maps to one slot
+ * of a fixed-size table, so a new position simply replaces whatever was in its slot. Entries are immutable, so the
+ * table can be read and written from any thread without locking; a racing write at worst costs a regeneration.
+ */
+final class LegalMoveCache {
+
+    private static final int SLOTS = 1 << 12;
+
+    private static final LegalMoves[] TABLE = new LegalMoves[SLOTS];
+
+    /**
+     * Scratch space for move generation, one per thread so games can be queried concurrently.
+     */
+    private static final ThreadLocal<MoveList> MOVE_BUFFER = ThreadLocal.withInitial(MoveList::new);
+
+    /**
+     * The legal moves of one team in one position.
+     * @param key The Zobrist key of the position with the team to move.
+     * @param moves Every legal move, packed.
+     * @param inCheck Whether the team's king is attacked.
+     */
+    record LegalMoves(long key, int[] moves, boolean inCheck) {
+
+        boolean noValidMoves() {
+            return moves.length == 0;
+        }
+    }
+
+    private LegalMoveCache() {
+    }
+
+    /**
+     * Returns the legal moves for one team, generating them only if the position is not cached.
+     * @param board The position.
+     * @param color The team moving, which need not be the board's side to move.
+     * @return The team's legal moves and check status.
+     */
+    static LegalMoves legalMoves(ChessBoard board, ChessGame.TeamColor color) {
+        long key = board.zobristKey(color);
+        int slot = (int) (key ^ (key >>> 32)) & (SLOTS - 1);
+        LegalMoves cached = TABLE[slot];
+        if (cached != null && cached.key() == key) {
+            return cached;
+        }
+
+        MoveList buffer = MOVE_BUFFER.get();
+        buffer.clear();
+        MoveGenerator.legalMoves(board, color, ~0L, buffer);
+        int[] moves = new int[buffer.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = buffer.get(i);
+        }
+        LegalMoves generated = new LegalMoves(key, moves, board.isInCheck(color));
+        TABLE[slot] = generated;
+        return generated;
+    }
+}
@@ -0,0 +1,200 @@
+package chess;
+
+/**
+ * Generates strictly legal moves from a bitboard position.
+ * <p>
+ * Checking pieces and pinned pieces are found once up front. Every move is then limited to the squares that resolve
+ * a check and, for pinned pieces, to the line through the king, so moves never have to be tried on a copy of the
+ * board to see whether they leave the king in danger. Castling and en passant are included.
+ * <p>
+ * Moves are written as packed ints into a caller-supplied {@link MoveList}, so generation allocates nothing.
+ */
+final class MoveGenerator {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK};
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds every legal move for one team's pieces on the given squares.
+     * @param board The position to generate moves for.
+     * @param color The team moving.
+     * @param fromMask Bitboard of the squares whose pieces should be moved.
+     * @param moves The list to add the moves to.
+     */
+    static void legalMoves(ChessBoard board, ChessGame.TeamColor color, long fromMask, MoveList moves) {
+        ChessGame.TeamColor enemy = color.opposite();
+        long own = board.occupancy(color);
+        long occupied = own | board.occupancy(enemy);
+        int king = board.kingSquare(color);
+
+        long checkers = 0;
+        long pinned = 0;
+        long evasionMask = ~0L;
+        if (king >= 0) {
+            checkers = board.attackersTo(king, enemy, occupied);
+            pinned = pinnedPieces(board, king, color, own, occupied);
+            if ((fromMask & (1L << king)) != 0) {
+                addKingMoves(board, king, color, own, occupied, checkers == 0, moves);
+            }
+            if (Long.bitCount(checkers) > 1) {
+                return;
+            }
+            if (checkers != 0) {
+                int checker = Long.numberOfTrailingZeros(checkers);
+                evasionMask = checkers | Bitboards.BETWEEN[king][checker];
+            }
+        }
+
+        for (long pieces = own & fromMask & ~(king >= 0 ? 1L << king : 0); pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            long allowed = evasionMask;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Bitboards.LINE[king][from];
+            }
+            int index = board.indexAt(from);
+            switch (Bitboards.typeOf(index)) {
+                case PAWN -> addPawnMoves(board, from, color, occupied, allowed, king, moves);
+                case KNIGHT -> addMoves(from, Bitboards.KNIGHT_ATTACKS[from] & ~own & allowed, occupied, moves);
+                case BISHOP -> addMoves(from, SliderAttacks.bishopAttacks(from, occupied) & ~own & allowed, occupied,
+                        moves);
+                case ROOK -> addMoves(from, SliderAttacks.rookAttacks(from, occupied) & ~own & allowed, occupied,
+                        moves);
+                case QUEEN -> addMoves(from, SliderAttacks.queenAttacks(from, occupied) & ~own & allowed, occupied,
+                        moves);
+                case KING -> addMoves(from, Bitboards.KING_ATTACKS[from] & ~own & allowed, occupied, moves);
+            }
+        }
+    }
+
+    /**
+     * Returns the friendly pieces that are the only blocker between their king and an enemy slider.
+     */
+    private static long pinnedPieces(ChessBoard board, int king, ChessGame.TeamColor color, long own, long occupied) {
+        ChessGame.TeamColor enemy = color.opposite();
+        long enemies = occupied & ~own;
+        long snipers = (SliderAttacks.rookAttacks(king, enemies)
+                    & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | board.pieces(enemy, ChessPiece.PieceType.QUEEN)))
+                | (SliderAttacks.bishopAttacks(king, enemies)
+                    & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | board.pieces(enemy, ChessPiece.PieceType.QUEEN)));
+        long pinned = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.BETWEEN[king][Long.numberOfTrailingZeros(snipers)] & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Adds king steps to unattacked squares and, when allowed, castling moves.
+     */
+    private static void addKingMoves(ChessBoard board, int king, ChessGame.TeamColor color, long own, long occupied,
+                                     boolean canCastle, MoveList moves) {
+        ChessGame.TeamColor enemy = color.opposite();
+        long withoutKing = occupied & ~(1L << king);
+        for (long targets = Bitboards.KING_ATTACKS[king] & ~own; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (board.attackersTo(to, enemy, withoutKing) == 0) {
+                moves.add(PackedMove.of(king, to, null, captureFlag(to, occupied)));
+            }
+        }
+        if (!canCastle) {
+            return;
+        }
+
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int home = white ? Bitboards.square(1, 5) : Bitboards.square(8, 5);
+        if (king != home) {
+            return;
+        }
+        int rights = board.getCastlingRights();
+        long rooks = board.pieces(color, ChessPiece.PieceType.ROOK);
+        if ((rights & (white ? ChessBoard.WHITE_KINGSIDE : ChessBoard.BLACK_KINGSIDE)) != 0
+                && (rooks & (1L << (home + 3))) != 0
+                && (occupied & Bitboards.BETWEEN[home][home + 3]) == 0
+                && board.attackersTo(home + 1, enemy, occupied) == 0
+                && board.attackersTo(home + 2, enemy, occupied) == 0) {
+            moves.add(PackedMove.of(home, home + 2, null, PackedMove.CASTLE));
+        }
+        if ((rights & (white ? ChessBoard.WHITE_QUEENSIDE : ChessBoard.BLACK_QUEENSIDE)) != 0
+                && (rooks & (1L << (home - 4))) != 0
+                && (occupied & Bitboards.BETWEEN[home][home - 4]) == 0
+                && board.attackersTo(home - 1, enemy, occupied) == 0
+                && board.attackersTo(home - 2, enemy, occupied) == 0) {
+            moves.add(PackedMove.of(home, home - 2, null, PackedMove.CASTLE));
+        }
+    }
+
+    /**
+     * Adds pushes, captures, promotions and en passant captures for one pawn.
+     */
+    private static void addPawnMoves(ChessBoard board, int from, ChessGame.TeamColor color, long occupied,
+                                     long allowed, int king, MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        long enemies = board.occupancy(color.opposite());
+        long targets = Bitboards.PAWN_ATTACKS[color.ordinal()][from] & enemies;
+
+        int forward = white ? from + 8 : from - 8;
+        if (forward >= 0 && forward < 64 && (occupied & (1L << forward)) == 0) {
+            targets |= 1L << forward;
+            int startRow = white ? 1 : 6;
+            int doubleForward = white ? from + 16 : from - 16;
+            if (Bitboards.row(from) == startRow && (occupied & (1L << doubleForward)) == 0) {
+                targets |= 1L << doubleForward;
+            }
+        }
+
+        for (targets &= allowed; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int flags = captureFlag(to, occupied) | (Math.abs(to - from) == 16 ? PackedMove.DOUBLE_PUSH : 0);
+            int row = Bitboards.row(to);
+            if (row == 0 || row == 7) {
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    moves.add(PackedMove.of(from, to, promotion, flags));
+                }
+            }
+            else {
+                moves.add(PackedMove.of(from, to, null, flags));
+            }
+        }
+
+        int enPassant = board.getEnPassantSquare();
+        if (enPassant >= 0 && Bitboards.row(enPassant) == (white ? 5 : 2)
+                && (Bitboards.PAWN_ATTACKS[color.ordinal()][from] & (1L << enPassant)) != 0) {
+            int captured = (from & ~7) | (enPassant & 7);
+            if ((board.pieces(color.opposite(), ChessPiece.PieceType.PAWN) & (1L << captured)) != 0
+                    && enPassantIsSafe(board, from, enPassant, captured, color, occupied, king)) {
+                moves.add(PackedMove.of(from, enPassant, null, PackedMove.CAPTURE | PackedMove.EN_PASSANT));
+            }
+        }
+    }
+
+    /**
+     * En passant removes two pieces from a row at once, which pin detection cannot see, so the king is checked
+     * directly against the position after the capture.
+     */
+    private static boolean enPassantIsSafe(ChessBoard board, int from, int to, int captured,
+                                           ChessGame.TeamColor color, long occupied, int king) {
+        if (king < 0) {
+            return true;
+        }
+        long after = (occupied & ~(1L << from) & ~(1L << captured)) | (1L << to);
+        return (board.attackersTo(king, color.opposite(), after) & ~(1L << captured)) == 0;
+    }
+
+    private static void addMoves(int from, long targets, long occupied, MoveList moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(PackedMove.of(from, to, null, captureFlag(to, occupied)));
+        }
+    }
+
+    private static int captureFlag(int to, long occupied) {
+        return (occupied & (1L << to)) != 0 ? PackedMove.CAPTURE : 0;
+    }
+}
@@ -0,0 +1,33 @@
+package chess;
+
+/**
+ * A reusable, fixed-capacity buffer of packed moves. No chess position has more than 218 legal moves, so the
+ * buffer never needs to grow.
+ */
+final class MoveList {
+
+    private static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    void add(int move) {
+        moves[size++] = move;
+    }
+
+    int get(int i) {
+        return moves[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
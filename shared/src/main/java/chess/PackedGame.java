@@ -0,0 +1,125 @@
+package chess;
+
+/**
+ * Encodes positions and games as short byte arrays, without reflection.
+ * <p>
+ * The layout is a version byte, the 64-bit occupancy of the board, a byte of flags (bit 0 black to move, bits 1 - 4
+ * castling rights, bit 5 game over), the en passant square (or -1), the halfmove clock and fullmove number as
+ * unsigned 16-bit values, and then one 4-bit piece code (the bitboard index) per occupied square in square order,
+ * two to a byte. A position with 32 pieces takes 31 bytes.
+ * <p>
+ * A board packed on its own has counters of 0 and 1 and is never over, so equal positions always pack to equal
+ * bytes and the result can serve as an exact position key.
+ */
+public final class PackedGame {
+
+    /**
+     * The first byte of every packed game. Text formats (JSON and FEN) never start with it, so stored values can be
+     * told apart.
+     */
+    public static final byte VERSION = 1;
+
+    private static final int HEADER_BYTES = 15;
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int CASTLING_SHIFT = 1;
+    private static final int GAME_OVER = 1 << 5;
+
+    private PackedGame() {
+    }
+
+    public static byte[] pack(ChessGame game) {
+        return pack(game.getBoard(), game.getHalfmoveClock(), game.getFullmoveNumber(), game.isOver());
+    }
+
+    public static byte[] pack(ChessBoard board) {
+        return pack(board, 0, 1, false);
+    }
+
+    private static byte[] pack(ChessBoard board, int halfmoveClock, int fullmoveNumber, boolean over) {
+        long occupied = board.occupancy();
+        int pieces = Long.bitCount(occupied);
+        byte[] bytes = new byte[HEADER_BYTES + (pieces + 1) / 2];
+
+        bytes[0] = VERSION;
+        for (int i = 0; i < 8; i++) {
+            bytes[1 + i] = (byte) (occupied >>> (56 - 8 * i));
+        }
+        int flags = board.getCastlingRights() << CASTLING_SHIFT;
+        if (board.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            flags |= BLACK_TO_MOVE;
+        }
+        if (over) {
+            flags |= GAME_OVER;
+        }
+        bytes[9] = (byte) flags;
+        bytes[10] = (byte) board.getEnPassantSquare();
+        writeShort(bytes, 11, halfmoveClock);
+        writeShort(bytes, 13, fullmoveNumber);
+
+        int piece = 0;
+        for (long bits = occupied; bits != 0; bits &= bits - 1, piece++) {
+            int index = board.indexAt(Long.numberOfTrailingZeros(bits));
+            bytes[HEADER_BYTES + piece / 2] |= (byte) (index << (4 * (piece & 1)));
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Whether the bytes start like a packed game.
+     */
+    public static boolean isPacked(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_BYTES && bytes[0] == VERSION;
+    }
+
+    /**
+     * @param bytes A game packed by {@link #pack(ChessGame)}.
+     * @return A new game holding the position, counters and game over state.
+     * @throws IllegalArgumentException if the bytes are not a packed game.
+     */
+    public static ChessGame unpackGame(byte[] bytes) {
+        ChessBoard board = unpackBoard(bytes);
+        return new ChessGame(board, readShort(bytes, 11), readShort(bytes, 13), (bytes[9] & GAME_OVER) != 0);
+    }
+
+    /**
+     * @param bytes A board or game packed by this class.
+     * @return A new board holding the position, side to move, castling rights and en passant square.
+     * @throws IllegalArgumentException if the bytes are not a packed game.
+     */
+    public static ChessBoard unpackBoard(byte[] bytes) {
+        if (!isPacked(bytes)) {
+            throw new IllegalArgumentException("Not a packed game");
+        }
+        long occupied = 0;
+        for (int i = 0; i < 8; i++) {
+            occupied = (occupied << 8) | (bytes[1 + i] & 0xFF);
+        }
+        if (bytes.length != HEADER_BYTES + (Long.bitCount(occupied) + 1) / 2) {
+            throw new IllegalArgumentException("Packed game has the wrong length for its pieces");
+        }
+
+        ChessBoard board = new ChessBoard();
+        int piece = 0;
+        for (long bits = occupied; bits != 0; bits &= bits - 1, piece++) {
+            int index = (bytes[HEADER_BYTES + piece / 2] >>> (4 * (piece & 1))) & 0xF;
+            if (index >= 12) {
+                throw new IllegalArgumentException("Invalid piece code " + index);
+            }
+            board.placePiece(index, Long.numberOfTrailingZeros(bits));
+        }
+        int flags = bytes[9];
+        board.setTeamTurn((flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        board.setCastlingRights((flags >>> CASTLING_SHIFT) & ChessBoard.ALL_CASTLING);
+        board.setEnPassantSquare(bytes[10] < 0 ? -1 : bytes[10] & 63);
+        return board;
+    }
+
+    private static void writeShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 8);
+        bytes[offset + 1] = (byte) value;
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,65 @@
+package chess;
+
+/**
+ * Encodes a move as a single int so move generation does not allocate.
+ * <p>
+ * Bits 0 - 5 hold the start square, bits 6 - 11 the end square and bits 12 - 14 the promotion type
+ * ({@link ChessPiece.PieceType#ordinal()} + 1, or 0 for no promotion). The remaining flag bits describe the kind of
+ * move. {@link ChessMove} objects are only created from packed moves at the public API boundary.
+ */
+final class PackedMove {
+
+    static final int CAPTURE = 1 << 15;
+    static final int DOUBLE_PUSH = 1 << 16;
+    static final int EN_PASSANT = 1 << 17;
+    static final int CASTLE = 1 << 18;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param from The start square.
+     * @param to The end square.
+     * @param promotion The promotion type, or null.
+     * @param flags Any of the flag constants.
+     * @return The packed move.
+     */
+    static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | (to << 6) | (promotion == null ? 0 : (promotion.ordinal() + 1) << 12) | flags;
+    }
+
+    static int from(int move) {
+        return move & 63;
+    }
+
+    static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return The promotion type of a packed move, or null if it does not promote.
+     */
+    static ChessPiece.PieceType promotion(int move) {
+        int code = (move >>> 12) & 7;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return Whether a packed move goes between the same squares with the same promotion as a ChessMove.
+     */
+    static boolean matches(int move, ChessMove chessMove) {
+        return from(move) == Bitboards.square(chessMove.getStartPosition())
+                && to(move) == Bitboards.square(chessMove.getEndPosition())
+                && promotion(move) == chessMove.getPromotionPiece();
+    }
+
+    static ChessMove toChessMove(int move) {
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotion(move));
+    }
+}
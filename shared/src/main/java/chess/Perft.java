@@ -0,0 +1,198 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth, for checking move generation against published
+ * node counts and for measuring its speed.
+ * <p>
+ * Run from the command line with {@code [--divide] [depth] [fen]}. With no FEN, every standard position is counted
+ * and compared against its expected node count.
+ */
+public final class Perft {
+
+    /**
+     * A reference position and its known node counts, where {@code nodes[d - 1]} is the count at depth {@code d}.
+     */
+    public record Position(String name, String fen, long... nodes) {
+    }
+
+    public static final List<Position> STANDARD_POSITIONS = List.of(
+            new Position("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20, 400, 8902, 197281, 4865609, 119060324),
+            new Position("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603, 193690690),
+            new Position("position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624, 11030083),
+            new Position("position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333, 15833292),
+            new Position("position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487, 89941194),
+            new Position("position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594, 164075551));
+
+    private final ChessBoard[] boards;
+    private final MoveList[] moveLists;
+
+    /**
+     * Creates a counter with scratch boards and move lists for searching up to the given depth.
+     * @param maxDepth The deepest search this counter will run.
+     */
+    public Perft(int maxDepth) {
+        boards = new ChessBoard[maxDepth + 1];
+        moveLists = new MoveList[maxDepth + 1];
+        for (int i = 0; i <= maxDepth; i++) {
+            boards[i] = new ChessBoard();
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Counts the positions reachable in exactly the given number of moves.
+     * @param board The position to search from, with the side to move set.
+     * @param depth The number of moves to play.
+     * @return The number of leaf positions.
+     */
+    public long count(ChessBoard board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        boards[0].copyBoard(board);
+        return count(0, depth);
+    }
+
+    /**
+     * Counts leaf positions separately for each move from the given position.
+     * @param board The position to search from, with the side to move set.
+     * @param depth The number of moves to play, including the first.
+     * @return Node counts keyed by each first move in long algebraic notation, such as "e2e4".
+     */
+    public Map<String, Long> divide(ChessBoard board, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        MoveGenerator.legalMoves(board, board.getTeamTurn(), ~0L, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            ChessBoard child = board.copyOf();
+            child.doMove(moves.get(i));
+            counts.put(notation(moves.get(i)), count(child, depth - 1));
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the positions reachable in exactly the given number of moves using only {@link ChessGame#validMoves} and
+     * {@link ChessGame#makeMove}, the methods clients call. Much slower than {@link #count(ChessBoard, int)}, which
+     * drives the move generator directly.
+     * @param game The game to search from. It is not modified.
+     * @param depth The number of moves to play.
+     * @return The number of leaf positions.
+     * @throws InvalidMoveException if the game rejects a move it reported as valid.
+     */
+    public static long countGame(ChessGame game, int depth) throws InvalidMoveException {
+        if (depth == 0) {
+            return 1;
+        }
+        List<ChessMove> moves = validMoves(game);
+        if (depth == 1) {
+            return moves.size();
+        }
+        String fen = Fen.toFen(game);
+        long nodes = 0;
+        for (ChessMove move : moves) {
+            ChessGame child = Fen.parseGame(fen);
+            child.makeMove(move);
+            nodes += countGame(child, depth - 1);
+        }
+        return nodes;
+    }
+
+    /**
+     * @return The valid moves of every piece of the team to move.
+     */
+    private static List<ChessMove> validMoves(ChessGame game) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    moves.addAll(game.validMoves(position));
+                }
+            }
+        }
+        return moves;
+    }
+
+    private long count(int ply, int depth) {
+        ChessBoard board = boards[ply];
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        MoveGenerator.legalMoves(board, board.getTeamTurn(), ~0L, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        ChessBoard child = boards[ply + 1];
+        for (int i = 0; i < moves.size(); i++) {
+            child.copyBoard(board);
+            child.doMove(moves.get(i));
+            nodes += count(ply + 1, depth - 1);
+        }
+        return nodes;
+    }
+
+    private static String notation(int move) {
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        return Bitboards.position(PackedMove.from(move)).chessNotation()
+                + Bitboards.position(PackedMove.to(move)).chessNotation()
+                + (promotion == null ? "" : Character.toString("kqbnrp".charAt(promotion.ordinal())));
+    }
+
+    public static void main(String[] args) {
+        boolean divide = args.length > 0 && args[0].equals("--divide");
+        int first = divide ? 1 : 0;
+        int depth = args.length > first ? Integer.parseInt(args[first]) : 4;
+        String fen = args.length > first + 1 ? String.join(" ", List.of(args).subList(first + 1, args.length)) : null;
+
+        Perft perft = new Perft(depth);
+        if (fen != null) {
+            run(perft, new Position("custom", fen), depth, divide);
+            return;
+        }
+        boolean passed = true;
+        for (Position position : STANDARD_POSITIONS) {
+            passed &= run(perft, position, Math.min(depth, position.nodes().length), divide);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Counts one position, prints the count and speed, and compares against the expected count if there is one.
+     * @return Whether the count matched, or true if there was nothing to compare against.
+     */
+    private static boolean run(Perft perft, Position position, int depth, boolean divide) {
+        ChessBoard board = Fen.parseBoard(position.fen());
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            Map<String, Long> counts = perft.divide(board, depth);
+            counts.forEach((move, count) -> System.out.printf("%s: %d%n", move, count));
+            nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+        }
+        else {
+            nodes = perft.count(board, depth);
+        }
+        long nanos = Math.max(System.nanoTime() - start, 1);
+
+        boolean matches = depth > position.nodes().length || position.nodes()[depth - 1] == nodes;
+        System.out.printf("%-10s depth %d: %,d nodes in %,d ms (%,d nodes/s)%s%n", position.name(), depth, nodes,
+                nanos / 1_000_000, nodes * 1_000_000_000L / nanos,
+                matches ? "" : " - expected " + position.nodes()[depth - 1]);
+        return matches;
+    }
+}
@@ -0,0 +1,51 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the keys of every piece on its square plus the
+ * keys for the side to move, castling rights and en passant file, so moving a piece updates the key with two XORs.
+ * <p>
+ * The keys come from a fixed seed, so a position has the same key in every JVM and keys can be compared between the
+ * client and server or stored.
+ */
+final class Zobrist {
+
+    /**
+     * Keys indexed by bitboard index (see {@link Bitboards#index}) and square.
+     */
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+    /**
+     * Keys indexed by the full set of castling rights, so a change of rights is a single XOR pair.
+     */
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        long[] castlingBits = new long[4];
+        for (int i = 0; i < castlingBits.length; i++) {
+            castlingBits[i] = random.nextLong();
+        }
+        for (int rights = 0; rights < CASTLING.length; rights++) {
+            for (int i = 0; i < castlingBits.length; i++) {
+                if ((rights & (1 << i)) != 0) {
+                    CASTLING[rights] ^= castlingBits[i];
+                }
+            }
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
@@ -10,8 +10,26 @@ public record GameData(int gameID, String whiteUsername, String blackUsername, S
         this(0, whiteUsername, blackUsername, gameName, game);
     }
 
+    /**
+     * Builds a GameData from a stored game, which may be either Gson JSON, read by {@link GameJson#parseGame}, or FEN
+     * as written by {@link Fen#toFen}.
+     */
     public GameData(int id, String whiteUsername, String blackUsername, String gameName, String serializedGame) {
-        this(id, whiteUsername, blackUsername, gameName, new Gson().fromJson(serializedGame, ChessGame.class));
+        this(id, whiteUsername, blackUsername, gameName, parseGame(serializedGame));
+    }
+
+    private static ChessGame parseGame(String serializedGame) {
+        if (serializedGame.startsWith("{")) {
+            return GameJson.parseGame(serializedGame);
+        }
+        return Fen.parseGame(serializedGame);
+    }
+
+    /**
+     * @return The username of the player of the given color, or null if nobody is playing it.
+     */
+    public String player(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.BLACK ? blackUsername : whiteUsername;
     }
 
     /**
@@ -29,10 +47,24 @@ public record GameData(int gameID, String whiteUsername, String blackUsername, S
         }
     }
 
+    /**
+     * @return A copy of this GameData holding a different game.
+     */
+    public GameData withGame(ChessGame newGame) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, newGame);
+    }
+
     public String serializedGame() {
         return new Gson().toJson(game);
     }
 
+    /**
+     * @return The game as a single FEN line, a much smaller alternative to {@link #serializedGame()} for storage.
+     */
+    public String fenGame() {
+        return Fen.toFen(game);
+    }
+
     public GameData removePlayer(String username) {
         if (this.blackUsername.equals(username)) {
             return new GameData(gameID, whiteUsername, null, gameName, game);
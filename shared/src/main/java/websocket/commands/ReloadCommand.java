@@ -0,0 +1,10 @@
+package websocket.commands;
+
+/**
+ * Asks the server to send the whole game again as a LOAD_GAME, for a client whose copy no longer matches it.
+ */
+public class ReloadCommand extends UserGameCommand {
+    public ReloadCommand(String authToken, Integer gameID) {
+        super(CommandType.RELOAD, authToken, gameID);
+    }
+}
@@ -1,14 +1,38 @@
 package websocket.messages;
 
+import chess.PackedGame;
 import com.google.gson.Gson;
 import model.GameData;
 
+import java.util.Base64;
+
 public class LoadGameMessage extends ServerMessage {
     private final String game;
+    /**
+     * The chess game packed by {@link PackedGame} and Base64 encoded, or null. When set, {@link #game} holds the
+     * GameData without its chess game.
+     */
+    private final String packedGame;
 
     public LoadGameMessage(String game) {
+        this(game, null);
+    }
+
+    private LoadGameMessage(String game, String packedGame) {
         super(ServerMessageType.LOAD_GAME);
         this.game = game;
+        this.packedGame = packedGame;
+    }
+
+    /**
+     * Builds a message that carries the chess game packed instead of as Gson JSON, which is a fraction of the size
+     * and needs no reflection to read.
+     * @param data The game to send.
+     * @return The message.
+     */
+    public static LoadGameMessage packed(GameData data) {
+        return new LoadGameMessage(new Gson().toJson(data.withGame(null)),
+                Base64.getEncoder().encodeToString(PackedGame.pack(data.game())));
     }
 
     public String getGameString() {
@@ -16,6 +40,10 @@ public class LoadGameMessage extends ServerMessage {
     }
 
     public GameData getGame() {
-        return new Gson().fromJson(game, GameData.class);
+        GameData data = new Gson().fromJson(game, GameData.class);
+        if (packedGame != null) {
+            return data.withGame(PackedGame.unpackGame(Base64.getDecoder().decode(packedGame)));
+        }
+        return data;
     }
 }
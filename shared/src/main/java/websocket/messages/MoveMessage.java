@@ -0,0 +1,76 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+/**
+ * A move made in a game, sent in place of the whole game so a client can play it on its own copy. The ply count and
+ * Zobrist key of the resulting position let the client tell whether its copy still matches the server's.
+ */
+public class MoveMessage extends ServerMessage {
+    /**
+     * The move as packed by {@link ChessMove#encode()}.
+     */
+    private final int move;
+    private final ChessGame.GameStatus status;
+    private final int ply;
+    private final long hash;
+
+    private MoveMessage(int move, ChessGame.GameStatus status, int ply, long hash) {
+        super(ServerMessageType.MOVE);
+        this.move = move;
+        this.status = status;
+        this.ply = ply;
+        this.hash = hash;
+    }
+
+    /**
+     * @param move The move just made.
+     * @param game The game after the move.
+     * @return The message describing the move and where it led.
+     */
+    public static MoveMessage after(ChessMove move, ChessGame game) {
+        return new MoveMessage(move.encode(), game.getStatus(), game.getPly(), game.getBoard().zobristKey());
+    }
+
+    public ChessMove getMove() {
+        return ChessMove.decode(move);
+    }
+
+    /**
+     * @return The status of the team to move after the move.
+     */
+    public ChessGame.GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The number of half-moves played, including this one.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Plays the move on a local copy of the game if the copy is at the position the move was made from.
+     * @param game The local copy, which is changed in place.
+     * @return Whether the copy now matches the server's game. If not, the copy is out of date and should be
+     * replaced with a fresh LOAD_GAME.
+     */
+    public boolean applyTo(ChessGame game) {
+        if (game.getPly() != ply - 1) {
+            return false;
+        }
+        try {
+            game.makeMove(getMove());
+        } catch (InvalidMoveException e) {
+            return false;
+        }
+        return game.getPly() == ply && game.getBoard().zobristKey() == hash;
+    }
+}
@@ -0,0 +1,65 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("Standard Positions Round Trip")
+    public void standardPositionsRoundTrip() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            ChessGame game = Fen.parseGame(position.fen());
+            Assertions.assertEquals(position.fen(), Fen.toFen(game), position.name());
+            Assertions.assertEquals(game.getBoard().zobristKey(),
+                    Fen.parseGame(Fen.toFen(game)).getBoard().zobristKey(), position.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Counters Follow Moves")
+    public void countersFollowMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", Fen.toFen(game));
+
+        play(game, 2, 5, 4, 5);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", Fen.toFen(game));
+        play(game, 8, 7, 6, 6);
+        play(game, 1, 7, 3, 6);
+        Assertions.assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 2 2", Fen.toFen(game));
+        play(game, 6, 6, 4, 5);
+        Assertions.assertEquals("rnbqkb1r/pppppppp/8/8/4n3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 0 3", Fen.toFen(game));
+    }
+
+    @Test
+    @DisplayName("Game Over Round Trip")
+    public void gameOverRoundTrip() throws InvalidMoveException {
+        ChessGame resigned = new ChessGame();
+        resigned.setGameOver();
+        ChessGame restored = Fen.parseGame(Fen.toFen(resigned));
+        Assertions.assertTrue(restored.isOver());
+        Assertions.assertEquals(ChessGame.GameStatus.RESIGNED, restored.getStatus());
+        Assertions.assertThrows(GameOverException.class, restored::setGameOver);
+
+        ChessGame mated = Fen.parseGame("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3 over");
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, mated.getStatus());
+        Assertions.assertFalse(Fen.parseGame(Fen.toFen(new ChessGame())).isOver());
+    }
+
+    @Test
+    @DisplayName("Invalid FEN Is Rejected")
+    public void invalidFenIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parseGame("8/8/8 w - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Fen.parseGame("8/8/8/8/8/8/8/8 w - - zero 1"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Fen.parseGame("8/8/8/8/8/8/8/8 w X - 0 1"));
+    }
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(ChessPosition.getPosition(fromRow, fromCol),
+                ChessPosition.getPosition(toRow, toCol), null));
+    }
+}
@@ -0,0 +1,63 @@
+package chess;
+
+import com.google.gson.Gson;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameJsonTests {
+
+    @Test
+    @DisplayName("Current JSON Round Trip")
+    public void currentJsonRoundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        ChessGame restored = GameJson.parseGame(new Gson().toJson(game));
+        Assertions.assertEquals(Fen.toFen(game), Fen.toFen(restored));
+    }
+
+    @Test
+    @DisplayName("Legacy Starting Board")
+    public void legacyStartingBoard() throws InvalidMoveException {
+        ChessGame game = GameJson.parseGame(legacyJson(new ChessGame().getBoard().getPieces(), "WHITE", false));
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", Fen.toFen(game));
+        Assertions.assertEquals(2, game.validMoves(new ChessPosition(2, 5)).size());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Legacy Moved Pieces Forfeit Castling")
+    public void legacyMovedPiecesForfeitCastling() {
+        ChessPiece[][] pieces = new ChessPiece[8][8];
+        pieces[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING, true);
+        pieces[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        pieces[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        pieces[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        pieces[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK, true);
+
+        ChessGame game = GameJson.parseGame(legacyJson(pieces, "BLACK", false));
+        Assertions.assertEquals("r3k2r/8/8/8/8/8/8/4K2R b q - 0 1", Fen.toFen(game));
+    }
+
+    @Test
+    @DisplayName("Legacy Game Over")
+    public void legacyGameOver() {
+        GameData data = new GameData(1, "white", "black", "game",
+                legacyJson(new ChessGame().getBoard().getPieces(), "WHITE", true));
+        Assertions.assertTrue(data.game().isOver());
+        Assertions.assertThrows(GameOverException.class, () -> data.game().makeMove(
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+    }
+
+    /**
+     * Writes a game the way Gson did when a board was stored as a grid of pieces.
+     */
+    private static String legacyJson(ChessPiece[][] pieces, String turn, boolean over) {
+        return "{\"turn\":\"" + turn + "\",\"board\":{\"pieces\":" + new Gson().toJson(pieces)
+                + "},\"over\":" + over + "}";
+    }
+}
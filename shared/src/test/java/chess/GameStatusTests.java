@@ -0,0 +1,113 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameStatusTests {
+
+    @Test
+    @DisplayName("Status Follows Each Move")
+    public void statusFollowsEachMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, 2, 6, 3, 6);
+        play(game, 7, 5, 5, 5);
+        play(game, 2, 7, 4, 7);
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, 8, 4, 4, 8);
+
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        Assertions.assertTrue(game.isOver());
+    }
+
+    @Test
+    @DisplayName("Check And Stalemate")
+    public void checkAndStalemate() throws InvalidMoveException {
+        ChessGame game = new ChessGame(ChessGame.TeamColor.WHITE, Fen.parseBoard("7k/8/5Q2/6K1/8/8/8/8 w - - 0 1"));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, 6, 6, 8, 6);
+        Assertions.assertEquals(ChessGame.GameStatus.CHECK, game.getStatus());
+        Assertions.assertFalse(game.isOver());
+
+        game = new ChessGame(ChessGame.TeamColor.WHITE, Fen.parseBoard("7k/8/5Q2/6K1/8/8/8/8 w - - 0 1"));
+        play(game, 6, 6, 7, 6);
+        Assertions.assertEquals(ChessGame.GameStatus.STALEMATE, game.getStatus());
+        Assertions.assertTrue(game.isOver());
+    }
+
+    @Test
+    @DisplayName("Seventy-Five Move Draw")
+    public void seventyFiveMoveDraw() throws InvalidMoveException {
+        ChessGame game = Fen.parseGame("7k/8/5Q2/8/8/8/8/K7 w - - 98 80");
+        play(game, 6, 6, 5, 6);
+        play(game, 8, 8, 8, 7);
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus(),
+                "The fifty-move rule only lets a player claim a draw");
+        Assertions.assertFalse(game.isOver());
+
+        game = Fen.parseGame("7k/8/5Q2/8/8/8/8/K7 w - - 148 100");
+        play(game, 6, 6, 5, 6);
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, 8, 8, 8, 7);
+        Assertions.assertEquals(ChessGame.GameStatus.SEVENTY_FIVE_MOVE, game.getStatus());
+        Assertions.assertTrue(game.isOver());
+        ChessGame drawn = game;
+        Assertions.assertThrows(GameOverException.class, () -> play(drawn, 5, 6, 6, 6));
+
+        Assertions.assertEquals(ChessGame.GameStatus.SEVENTY_FIVE_MOVE,
+                Fen.parseGame("7k/8/5Q2/8/8/8/8/K7 w - - 150 100").getStatus());
+        ChessGame mate = Fen.parseGame("7k/8/6K1/8/8/8/8/Q7 w - - 149 100");
+        play(mate, 1, 1, 8, 1);
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, mate.getStatus());
+    }
+
+    @Test
+    @DisplayName("Status Follows Turn And Board")
+    public void statusFollowsTurnAndBoard() {
+        ChessGame game = new ChessGame(ChessGame.TeamColor.WHITE, Fen.parseBoard("7k/5Q2/6K1/8/8/8/8/8 w - - 0 1"));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(ChessGame.GameStatus.STALEMATE, game.getStatus());
+        game.setBoard(Fen.parseBoard("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1"));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+    }
+
+    @Test
+    @DisplayName("Status Is Serialized")
+    public void statusIsSerialized() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setGameOver();
+        ChessGame copy = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(ChessGame.GameStatus.RESIGNED, copy.getStatus());
+        Assertions.assertTrue(copy.isOver());
+    }
+
+    @Test
+    @DisplayName("Update Copies Game Over")
+    public void updateCopiesGameOver() throws InvalidMoveException {
+        ChessGame resigned = new ChessGame();
+        resigned.setGameOver();
+        ChessGame game = new ChessGame();
+        game.updateGame(resigned);
+        Assertions.assertTrue(game.isOver());
+        Assertions.assertEquals(ChessGame.GameStatus.RESIGNED, game.getStatus());
+        Assertions.assertThrows(GameOverException.class, () -> play(game, 2, 5, 4, 5));
+
+        game.setBoard(ChessBoard.defaultBoard());
+        Assertions.assertFalse(game.isOver());
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, 2, 5, 4, 5);
+
+        game.updateGame(new ChessGame());
+        Assertions.assertFalse(game.isOver());
+    }
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(ChessPosition.getPosition(fromRow, fromCol),
+                ChessPosition.getPosition(toRow, toCol), null));
+    }
+}
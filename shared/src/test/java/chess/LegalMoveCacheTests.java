@@ -0,0 +1,54 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LegalMoveCacheTests {
+
+    @Test
+    @DisplayName("Repeated Queries Reuse Entry")
+    public void repeatedQueriesReuseEntry() {
+        ChessBoard board = Fen.parseBoard(Perft.STANDARD_POSITIONS.get(1).fen());
+        LegalMoveCache.LegalMoves first = LegalMoveCache.legalMoves(board, ChessGame.TeamColor.WHITE);
+
+        Assertions.assertEquals(48, first.moves().length);
+        Assertions.assertSame(first, LegalMoveCache.legalMoves(board.copyOf(), ChessGame.TeamColor.WHITE));
+        Assertions.assertNotSame(first, LegalMoveCache.legalMoves(board, ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Cached Status Matches Position")
+    public void cachedStatusMatchesPosition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(20, LegalMoveCache.legalMoves(game.getBoard(), ChessGame.TeamColor.WHITE).moves().length);
+        play(game, 2, 6, 3, 6);
+        play(game, 7, 5, 5, 5);
+        play(game, 2, 7, 4, 7);
+        Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        play(game, 8, 4, 4, 8);
+
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(game.isOver());
+    }
+
+    @Test
+    @DisplayName("Castling Rights Are Part Of The Key")
+    public void castlingRightsArePartOfTheKey() {
+        ChessBoard board = Fen.parseBoard("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        int withRights = LegalMoveCache.legalMoves(board, ChessGame.TeamColor.WHITE).moves().length;
+        board.setCastlingRights(0);
+        int withoutRights = LegalMoveCache.legalMoves(board, ChessGame.TeamColor.WHITE).moves().length;
+
+        Assertions.assertEquals(withRights - 2, withoutRights);
+    }
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(ChessPosition.getPosition(fromRow, fromCol),
+                ChessPosition.getPosition(toRow, toCol), null));
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+import com.google.gson.Gson;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.messages.LoadGameMessage;
+
+import java.util.Arrays;
+
+public class PackedGameTests {
+
+    @Test
+    @DisplayName("Standard Positions Round Trip")
+    public void standardPositionsRoundTrip() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            ChessGame game = Fen.parseGame(position.fen());
+            byte[] packed = PackedGame.pack(game);
+
+            Assertions.assertTrue(packed.length <= 31, position.name() + " packed to " + packed.length + " bytes");
+            Assertions.assertEquals(position.fen(), Fen.toFen(PackedGame.unpackGame(packed)), position.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Equal Positions Pack Equally")
+    public void equalPositionsPackEqually() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.getPosition(1, 7), ChessPosition.getPosition(3, 6), null));
+        game.makeMove(new ChessMove(ChessPosition.getPosition(8, 7), ChessPosition.getPosition(6, 6), null));
+        game.makeMove(new ChessMove(ChessPosition.getPosition(3, 6), ChessPosition.getPosition(1, 7), null));
+        game.makeMove(new ChessMove(ChessPosition.getPosition(6, 6), ChessPosition.getPosition(8, 7), null));
+
+        Assertions.assertArrayEquals(PackedGame.pack(ChessBoard.defaultBoard()), PackedGame.pack(game.getBoard()));
+        Assertions.assertFalse(Arrays.equals(PackedGame.pack(new ChessGame()), PackedGame.pack(game)),
+                "Move counters should be part of a packed game");
+    }
+
+    @Test
+    @DisplayName("Game Over Round Trip")
+    public void gameOverRoundTrip() throws GameOverException {
+        ChessGame game = new ChessGame();
+        game.setGameOver();
+        ChessGame unpacked = PackedGame.unpackGame(PackedGame.pack(game));
+
+        Assertions.assertTrue(unpacked.isOver());
+        Assertions.assertEquals(ChessGame.GameStatus.RESIGNED, unpacked.getStatus());
+    }
+
+    @Test
+    @DisplayName("Moves Round Trip Through Codes")
+    public void movesRoundTripThroughCodes() {
+        ChessGame game = Fen.parseGame(Perft.STANDARD_POSITIONS.get(1).fen());
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.getPosition(row, col);
+                if (game.getBoard().getPiece(position) == null) {
+                    continue;
+                }
+                for (ChessMove move : game.validMoves(position)) {
+                    Assertions.assertEquals(move, ChessMove.decode(move.encode()));
+                }
+            }
+        }
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            ChessMove promotion = new ChessMove(ChessPosition.getPosition(7, 8), ChessPosition.getPosition(8, 8), type);
+            Assertions.assertTrue(promotion.encode() < 1 << 15, "Codes should fit in 15 bits");
+            Assertions.assertEquals(promotion, ChessMove.decode(promotion.encode()));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.decode(7 << 12));
+    }
+
+    @Test
+    @DisplayName("Invalid Bytes Are Rejected")
+    public void invalidBytesAreRejected() {
+        byte[] packed = PackedGame.pack(new ChessGame());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PackedGame.unpackGame(Arrays.copyOf(packed, packed.length - 1)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PackedGame.unpackGame("{\"board\":{}}".getBytes()));
+    }
+
+    @Test
+    @DisplayName("Packed Load Game Message")
+    public void packedLoadGameMessage() {
+        GameData data = new GameData(7, "white", "black", "packed", Fen.parseGame(Perft.STANDARD_POSITIONS.get(1).fen()));
+        String json = new Gson().toJson(LoadGameMessage.packed(data));
+        LoadGameMessage message = new Gson().fromJson(json, LoadGameMessage.class);
+
+        Assertions.assertEquals(data, message.getGame());
+        Assertions.assertTrue(json.length() < new Gson().toJson(new LoadGameMessage(new Gson().toJson(data))).length());
+    }
+}
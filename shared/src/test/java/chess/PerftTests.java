@@ -0,0 +1,67 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class PerftTests {
+
+    /**
+     * Keeps the suite fast by stopping each position at the deepest depth under this many nodes.
+     */
+    private static final long NODE_LIMIT = 5_000_000;
+
+    static Stream<Perft.Position> positions() {
+        return Perft.STANDARD_POSITIONS.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("positions")
+    @DisplayName("Standard Position Node Counts")
+    public void standardPositions(Perft.Position position) {
+        Perft perft = new Perft(position.nodes().length);
+        for (int depth = 1; depth <= position.nodes().length && position.nodes()[depth - 1] <= NODE_LIMIT; depth++) {
+            Assertions.assertEquals(position.nodes()[depth - 1], perft.count(Fen.parseBoard(position.fen()), depth),
+                    position.name() + " at depth " + depth);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("positions")
+    @DisplayName("Standard Position Node Counts Through ChessGame")
+    public void standardPositionsThroughChessGame(Perft.Position position) throws InvalidMoveException {
+        for (int depth = 1; depth <= 3; depth++) {
+            Assertions.assertEquals(position.nodes()[depth - 1], Perft.countGame(Fen.parseGame(position.fen()), depth),
+                    position.name() + " at depth " + depth);
+        }
+    }
+
+    @Test
+    @DisplayName("Divide Sums To Total")
+    public void divideSumsToTotal() {
+        ChessBoard board = Fen.parseBoard(Perft.STANDARD_POSITIONS.get(1).fen());
+        Perft perft = new Perft(3);
+        Map<String, Long> counts = perft.divide(board, 3);
+
+        Assertions.assertEquals(48, counts.size());
+        Assertions.assertEquals(perft.count(board, 3), counts.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertTrue(counts.containsKey("e1g1"), "Kingside castle missing from divide");
+    }
+
+    @Test
+    @DisplayName("ChessGame Agrees With Generator")
+    public void chessGameAgreesWithGenerator() {
+        ChessBoard board = Fen.parseBoard(Perft.STANDARD_POSITIONS.get(1).fen());
+        ChessGame game = new ChessGame(ChessGame.TeamColor.WHITE, board);
+        int total = 0;
+        for (long pieces = board.occupancy(ChessGame.TeamColor.WHITE); pieces != 0; pieces &= pieces - 1) {
+            total += game.validMoves(Bitboards.position(Long.numberOfTrailingZeros(pieces))).size();
+        }
+        Assertions.assertEquals(48, total);
+    }
+}
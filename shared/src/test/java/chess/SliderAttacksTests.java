@@ -0,0 +1,52 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class SliderAttacksTests {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static long walkRays(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                attacks |= 1L << (row * 8 + col);
+                if ((occupied & (1L << (row * 8 + col))) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    @Test
+    public void emptyBoardAttacks() {
+        for (int square = 0; square < 64; square++) {
+            Assertions.assertEquals(walkRays(square, 0, ROOK_DIRECTIONS), SliderAttacks.rookAttacks(square, 0));
+            Assertions.assertEquals(walkRays(square, 0, BISHOP_DIRECTIONS), SliderAttacks.bishopAttacks(square, 0));
+        }
+    }
+
+    @Test
+    public void randomOccupancyAttacks() {
+        Random random = new Random(240);
+        for (int i = 0; i < 20000; i++) {
+            int square = random.nextInt(64);
+            long occupied = random.nextLong() & random.nextLong();
+            Assertions.assertEquals(walkRays(square, occupied, ROOK_DIRECTIONS),
+                    SliderAttacks.rookAttacks(square, occupied));
+            Assertions.assertEquals(walkRays(square, occupied, BISHOP_DIRECTIONS),
+                    SliderAttacks.bishopAttacks(square, occupied));
+            Assertions.assertEquals(SliderAttacks.rookAttacks(square, occupied)
+                    | SliderAttacks.bishopAttacks(square, occupied), SliderAttacks.queenAttacks(square, occupied));
+        }
+    }
+}
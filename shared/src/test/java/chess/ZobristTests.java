@@ -0,0 +1,101 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Incremental Key Matches Rebuilt Board")
+    public void incrementalKeyMatchesRebuiltBoard() {
+        Random random = new Random(42);
+        MoveList moves = new MoveList();
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            ChessBoard board = Fen.parseBoard(position.fen());
+            for (int ply = 0; ply < 60; ply++) {
+                moves.clear();
+                MoveGenerator.legalMoves(board, board.getTeamTurn(), ~0L, moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                board.doMove(moves.get(random.nextInt(moves.size())));
+                Assertions.assertEquals(rebuild(board).zobristKey(), board.zobristKey(),
+                        position.name() + " after " + (ply + 1) + " moves");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Transpositions Share A Key")
+    public void transpositionsShareAKey() throws InvalidMoveException {
+        ChessGame knightsFirst = new ChessGame();
+        play(knightsFirst, 1, 7, 3, 6);
+        play(knightsFirst, 8, 7, 6, 6);
+        play(knightsFirst, 2, 5, 3, 5);
+        ChessGame pawnFirst = new ChessGame();
+        play(pawnFirst, 2, 5, 3, 5);
+        play(pawnFirst, 8, 7, 6, 6);
+        play(pawnFirst, 1, 7, 3, 6);
+
+        Assertions.assertEquals(knightsFirst.getBoard().zobristKey(), pawnFirst.getBoard().zobristKey());
+        Assertions.assertEquals(knightsFirst.getBoard(), pawnFirst.getBoard());
+        Assertions.assertEquals(knightsFirst.hashCode(), pawnFirst.hashCode());
+    }
+
+    @Test
+    @DisplayName("Position State Changes The Key")
+    public void positionStateChangesTheKey() throws InvalidMoveException {
+        ChessBoard board = ChessBoard.defaultBoard();
+        long start = board.zobristKey();
+
+        board.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(start, board.zobristKey(), "Side to move is not part of the key");
+        board.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        board.setCastlingRights(ChessBoard.WHITE_QUEENSIDE | ChessBoard.BLACK_KINGSIDE | ChessBoard.BLACK_QUEENSIDE);
+        Assertions.assertNotEquals(start, board.zobristKey(), "Castling rights are not part of the key");
+        Assertions.assertEquals(ChessBoard.defaultBoard(), board, "Castling rights should not affect equality");
+
+        ChessGame game = new ChessGame();
+        play(game, 1, 7, 3, 6);
+        play(game, 8, 7, 6, 6);
+        play(game, 3, 6, 1, 7);
+        play(game, 6, 6, 8, 7);
+        Assertions.assertEquals(start, game.getBoard().zobristKey(), "Knights back home should repeat the start");
+    }
+
+    @Test
+    @DisplayName("Deserialized Board Recomputes Key")
+    public void deserializedBoardRecomputesKey() {
+        ChessBoard board = Fen.parseBoard(Perft.STANDARD_POSITIONS.get(1).fen());
+        ChessBoard copy = new Gson().fromJson(new Gson().toJson(board), ChessBoard.class);
+
+        Assertions.assertEquals(board.zobristKey(), copy.zobristKey());
+        Assertions.assertEquals(board, copy);
+        Assertions.assertEquals(board.hashCode(), copy.hashCode());
+    }
+
+    private static ChessBoard rebuild(ChessBoard board) {
+        ChessBoard rebuilt = new ChessBoard();
+        ChessPiece[][] pieces = board.getPieces();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                rebuilt.addPiece(ChessPosition.getPosition(row, col), pieces[row - 1][col - 1]);
+            }
+        }
+        rebuilt.setTeamTurn(board.getTeamTurn());
+        rebuilt.setCastlingRights(board.getCastlingRights());
+        rebuilt.setEnPassantSquare(board.getEnPassantSquare());
+        return rebuilt;
+    }
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(ChessPosition.getPosition(fromRow, fromCol),
+                ChessPosition.getPosition(toRow, toCol), null));
+    }
+}
@@ -0,0 +1,59 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MoveMessageTests {
+
+    private static final ChessMove E4 = new ChessMove(ChessPosition.getPosition(2, 5),
+            ChessPosition.getPosition(4, 5), null);
+    private static final ChessMove E5 = new ChessMove(ChessPosition.getPosition(7, 5),
+            ChessPosition.getPosition(5, 5), null);
+
+    @Test
+    @DisplayName("Move Brings Copy In Step")
+    public void moveBringsCopyInStep() throws Exception {
+        ChessGame server = new ChessGame();
+        ChessGame client = new ChessGame();
+        server.makeMove(E4);
+
+        String json = new Gson().toJson(MoveMessage.after(E4, server));
+        MoveMessage msg = new Gson().fromJson(json, MoveMessage.class);
+
+        Assertions.assertEquals(ServerMessage.ServerMessageType.MOVE, msg.getServerMessageType());
+        Assertions.assertEquals(1, msg.getPly());
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, msg.getStatus());
+        Assertions.assertTrue(msg.applyTo(client));
+        Assertions.assertEquals(server, client);
+    }
+
+    @Test
+    @DisplayName("Missed Move Is Detected")
+    public void missedMoveIsDetected() throws Exception {
+        ChessGame server = new ChessGame();
+        ChessGame client = new ChessGame();
+        server.makeMove(E4);
+        server.makeMove(E5);
+
+        Assertions.assertFalse(MoveMessage.after(E5, server).applyTo(client));
+        Assertions.assertEquals(new ChessGame(), client, "A move that does not follow on should not be played");
+    }
+
+    @Test
+    @DisplayName("Different Position Is Detected")
+    public void differentPositionIsDetected() throws Exception {
+        ChessGame server = new ChessGame();
+        ChessGame client = new ChessGame();
+        client.getBoard().addPiece(ChessPosition.getPosition(3, 1),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        server.makeMove(E4);
+
+        Assertions.assertFalse(MoveMessage.after(E4, server).applyTo(client));
+    }
+}